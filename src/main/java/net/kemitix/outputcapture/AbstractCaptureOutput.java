@@ -23,11 +23,12 @@ package net.kemitix.outputcapture;
 
 import lombok.AccessLevel;
 import lombok.Getter;
-import net.kemitix.wrapper.printstream.PrintStreamWrapper;
 
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -37,7 +38,9 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 abstract class AbstractCaptureOutput implements CaptureOutput {
 
-    private static final Deque<RoutableCapturedOutput> ACTIVE_CAPTURES = new ArrayDeque<>();
+    private static final Deque<ActiveCapture> ACTIVE_CAPTURES = new ArrayDeque<>();
+    private static final ActiveCapture[] NONE_ACTIVE = new ActiveCapture[0];
+    private static volatile ActiveCapture[] activeSnapshot = NONE_ACTIVE;
     private static PrintStream savedOut;
     private static PrintStream savedErr;
 
@@ -58,20 +61,59 @@ abstract class AbstractCaptureOutput implements CaptureOutput {
         }
     }
 
+    /**
+     * Completes the capture, returning any failure to flush its sink rather than throwing it.
+     *
+     * @param capturedOutput The capture to complete
+     * @param failed         Whether the callable threw an exception
+     * @return an Optional containing the failure to flush the sink, or empty
+     */
+    static Optional<OutputCaptureException> complete(
+            final DefaultCapturedOutput capturedOutput,
+            final boolean failed
+    ) {
+        try {
+            capturedOutput.complete(failed);
+            return Optional.empty();
+        } catch (OutputCaptureException e) {
+            return Optional.of(e);
+        }
+    }
+
+    /**
+     * Binds the callable to run within the capture's context, if context propagation is enabled.
+     *
+     * @param callable       The callable to invoke
+     * @param captureContext The context of the capture
+     * @param options        The capture options
+     * @return the callable to invoke
+     */
+    static ThrowingCallable withinContext(
+            final ThrowingCallable callable,
+            final CaptureContext captureContext,
+            final CaptureOptions options
+    ) {
+        if (options.isContextPropagation()) {
+            return captureContext.bindTo(callable);
+        }
+        return callable;
+    }
+
     /**
      * Begin passing output to the {@link CaptureOutput}, before any other captures that may already be in place.
      *
      * @param capturedOutput the recipient of any future output
      */
-    void enable(final RoutableCapturedOutput capturedOutput) {
+    void enable(final ActiveCapture capturedOutput) {
         synchronized (ACTIVE_CAPTURES) {
             if (ACTIVE_CAPTURES.isEmpty()) {
                 savedOut = System.out;
                 savedErr = System.err;
-                System.setOut(PrintStreamWrapper.filter(savedOut, captureSystemOutFilter()));
-                System.setErr(PrintStreamWrapper.filter(savedErr, captureSystemErrFilter()));
+                System.setOut(new PrintStream(new CaptureStream(savedOut, false), true));
+                System.setErr(new PrintStream(new CaptureStream(savedErr, true), true));
             }
             ACTIVE_CAPTURES.addFirst(capturedOutput);
+            activeSnapshot = ACTIVE_CAPTURES.toArray(NONE_ACTIVE);
         }
     }
 
@@ -80,46 +122,16 @@ abstract class AbstractCaptureOutput implements CaptureOutput {
      *
      * @param capturedOutput the recipient to remove
      */
-    void disable(final RoutableCapturedOutput capturedOutput) {
+    void disable(final ActiveCapture capturedOutput) {
         synchronized (ACTIVE_CAPTURES) {
             ACTIVE_CAPTURES.remove(capturedOutput);
+            activeSnapshot = ACTIVE_CAPTURES.toArray(NONE_ACTIVE);
             if (ACTIVE_CAPTURES.isEmpty()) {
                 System.setOut(savedOut);
                 System.setErr(savedErr);
             }
         }
-    }
-
-    private static PrintStreamWrapper.ByteFilter captureSystemErrFilter() {
-        return aByte -> {
-            for (RoutableCapturedOutput co : ACTIVE_CAPTURES) {
-                final Router router = co.getRouter();
-                if (router.accepts(aByte)) {
-                    router.writeErr(aByte);
-                    co.err().write(aByte);
-                    if (router.isBlocking()) {
-                        break;
-                    }
-                }
-            }
-            return true;
-        };
-    }
-
-    private static PrintStreamWrapper.ByteFilter captureSystemOutFilter() {
-        return aByte -> {
-            for (RoutableCapturedOutput co : ACTIVE_CAPTURES) {
-                final Router router = co.getRouter();
-                if (router.accepts(aByte)) {
-                    router.writeOut(aByte);
-                    co.out().write(aByte);
-                    if (router.isBlocking()) {
-                        break;
-                    }
-                }
-            }
-            return true;
-        };
+        capturedOutput.getCopyThrough().flush();
     }
 
     /**
@@ -135,10 +147,105 @@ abstract class AbstractCaptureOutput implements CaptureOutput {
      * Remove any active captures.
      */
     static void removeAllActiveCaptures() {
-        while (!ACTIVE_CAPTURES.isEmpty()) {
-            ACTIVE_CAPTURES.poll();
+        synchronized (ACTIVE_CAPTURES) {
+            ACTIVE_CAPTURES.clear();
+            activeSnapshot = NONE_ACTIVE;
         }
         System.setOut(savedOut);
         System.setErr(savedErr);
     }
+
+    /**
+     * Passes output written to a system stream to each active capture that accepts it, and on to the original stream
+     * unless a capture redirects it or a copy-through takes it.
+     *
+     * <p>A range of bytes written at once, as a {@link PrintStream} does for each string it prints, is passed to each
+     * capture as a range, so that its lines are split by the bulk scan of {@link LineSplitter}. Routers accept output
+     * by the thread writing it, so a range is accepted or not as a whole.</p>
+     */
+    private static final class CaptureStream extends OutputStream {
+
+        private final PrintStream original;
+        private final boolean err;
+
+        CaptureStream(final PrintStream original, final boolean err) {
+            this.original = original;
+            this.err = err;
+        }
+
+        @Override
+        public void write(final int b) {
+            final byte aByte = (byte) b;
+            CopyThrough copier = null;
+            for (ActiveCapture co : activeSnapshot) {
+                final Router router = co.getRouter();
+                if (router.accepts(aByte)) {
+                    if (err) {
+                        co.writeErr(aByte);
+                    } else {
+                        co.writeOut(aByte);
+                    }
+                    if (router.isBlocking()) {
+                        // redirected bytes are not passed on to the original stream, by any capture
+                        return;
+                    }
+                    copier = firstCopier(copier, co);
+                }
+            }
+            // bytes taken by a copy-through are not also written directly
+            if (copier == null || !copy(copier, aByte)) {
+                original.write(b);
+            }
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return;
+            }
+            CopyThrough copier = null;
+            for (ActiveCapture co : activeSnapshot) {
+                final Router router = co.getRouter();
+                if (router.accepts(bytes[offset])) {
+                    if (err) {
+                        co.writeErr(bytes, offset, length);
+                    } else {
+                        co.writeOut(bytes, offset, length);
+                    }
+                    if (router.isBlocking()) {
+                        return;
+                    }
+                    copier = firstCopier(copier, co);
+                }
+            }
+            if (copier == null) {
+                original.write(bytes, offset, length);
+                return;
+            }
+            for (int i = offset; i < offset + length; i++) {
+                if (!copy(copier, bytes[i])) {
+                    original.write(bytes[i]);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            original.flush();
+        }
+
+        private static CopyThrough firstCopier(final CopyThrough copier, final ActiveCapture co) {
+            if (copier == null && !co.getCopyThrough().isDirect()) {
+                return co.getCopyThrough();
+            }
+            return copier;
+        }
+
+        private boolean copy(final CopyThrough copier, final byte aByte) {
+            if (err) {
+                return copier.copyErr(aByte);
+            }
+            return copier.copyOut(aByte);
+        }
+    }
 }
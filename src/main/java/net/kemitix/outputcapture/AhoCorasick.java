@@ -0,0 +1,175 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An Aho-Corasick automaton that finds which of many literals occur in a line in a single pass over its characters.
+ *
+ * <p>The trie is built with maps, then compiled into arrays so that searching neither boxes nor hashes characters.
+ * ASCII characters move through a dense table of every state's next state, with the failure links already followed.
+ * Other characters are looked up in each state's sorted array of children, following failure links until one
+ * matches.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class AhoCorasick {
+
+    private static final int[] NONE = new int[0];
+    private static final char[] NO_CHARS = new char[0];
+    private static final int ASCII = 128;
+
+    private final int[] ascii;
+    private final char[][] wideChars;
+    private final int[][] wideTargets;
+    private final int[] failures;
+    private final int[][] outputs;
+    private final int patterns;
+
+    /**
+     * Constructor.
+     *
+     * @param literals the literals to search for, each identified by its position in the list
+     */
+    AhoCorasick(final List<String> literals) {
+        this.patterns = literals.size();
+        final List<Map<Character, Integer>> trie = new ArrayList<>();
+        final List<List<Integer>> found = new ArrayList<>();
+        addState(trie, found);
+        for (int id = 0; id < literals.size(); id++) {
+            int state = 0;
+            for (final char c : literals.get(id).toCharArray()) {
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = addState(trie, found);
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            found.get(state).add(id);
+        }
+        final int states = trie.size();
+        this.ascii = new int[states * ASCII];
+        this.wideChars = new char[states][];
+        this.wideTargets = new int[states][];
+        this.failures = new int[states];
+        this.outputs = new int[states][];
+        compile(trie, found);
+    }
+
+    private static int addState(final List<Map<Character, Integer>> trie, final List<List<Integer>> found) {
+        trie.add(new TreeMap<>());
+        found.add(new ArrayList<>());
+        return trie.size() - 1;
+    }
+
+    /**
+     * Link each state to its failure state and fill in the transition tables, breadth first so that the tables of a
+     * state's failure state are complete before its own.
+     */
+    private void compile(final List<Map<Character, Integer>> trie, final List<List<Integer>> found) {
+        final Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            final Map<Character, Integer> children = trie.get(state);
+            final List<Integer> ids = new ArrayList<>(found.get(state));
+            if (state != 0) {
+                for (final int id : outputs[failures[state]]) {
+                    ids.add(id);
+                }
+                System.arraycopy(ascii, failures[state] * ASCII, ascii, state * ASCII, ASCII);
+            }
+            outputs[state] = toArray(ids);
+            wideChars[state] = NO_CHARS;
+            wideTargets[state] = NONE;
+            for (final Map.Entry<Character, Integer> transition : children.entrySet()) {
+                final char c = transition.getKey();
+                final int child = transition.getValue();
+                failures[child] = state == 0 ? 0 : next(failures[state], c);
+                if (c < ASCII) {
+                    ascii[state * ASCII + c] = child;
+                } else {
+                    addWide(state, c, child);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    private void addWide(final int state, final char c, final int child) {
+        final int length = wideChars[state].length;
+        wideChars[state] = Arrays.copyOf(wideChars[state], length + 1);
+        wideTargets[state] = Arrays.copyOf(wideTargets[state], length + 1);
+        wideChars[state][length] = c;
+        wideTargets[state][length] = child;
+    }
+
+    private int next(final int from, final char c) {
+        if (c < ASCII) {
+            return ascii[from * ASCII + c];
+        }
+        int state = from;
+        while (true) {
+            final int index = Arrays.binarySearch(wideChars[state], c);
+            if (index >= 0) {
+                return wideTargets[state][index];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failures[state];
+        }
+    }
+
+    private static int[] toArray(final List<Integer> ids) {
+        return ids.isEmpty() ? NONE : ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Find which literals occur in the text.
+     *
+     * @param text the text to search
+     * @return a flag for each literal, set if it occurs in the text
+     */
+    boolean[] search(final CharSequence text) {
+        final boolean[] matched = new boolean[patterns];
+        for (final int id : outputs[0]) {
+            matched[id] = true;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            for (final int id : outputs[state]) {
+                matched[id] = true;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Copies bytes to an output stream from a background thread, coalescing them into large writes.
+ *
+ * <p>Bytes are queued in a bounded ring buffer. When it is full, the writer either waits for space or the bytes are
+ * discarded and counted, according to the {@link CopyThrough.Overflow} policy.</p>
+ *
+ * <p>The ring is lock-free, with a single producer and the background thread as its only consumer. Bytes are
+ * offered while the {@code PrintStream} being written to holds its own lock, so only one thread offers at a
+ * time.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class AsyncCopier implements ByteSink {
+
+    private static final int MAX_WRITE = 8192;
+    private static final long CLOSE_TIMEOUT_MILLIS = 1000;
+    private static final long FULL_PARK_NANOS = 100_000;
+
+    private final byte[] buffer;
+    private final OutputStream target;
+    private final CopyThrough.Overflow overflow;
+    private final Object drainedMonitor = new Object();
+    private final Thread drainer;
+    // the position after the last queued byte, only written by the producer
+    private volatile long tail;
+    // the position of the next byte to write, only written by the drainer
+    private volatile long head;
+    private volatile boolean writing;
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+    private volatile long dropped;
+
+    /**
+     * Constructor, starting the background thread.
+     *
+     * @param target   the stream to copy to
+     * @param capacity the number of bytes that can be queued
+     * @param overflow what to do when the queue is full
+     * @param name     the name of the background thread
+     */
+    AsyncCopier(final OutputStream target, final int capacity, final CopyThrough.Overflow overflow, final String name) {
+        this.buffer = new byte[capacity];
+        this.target = target;
+        this.overflow = overflow;
+        this.drainer = new Thread(this::drain, name);
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public boolean offer(final byte aByte) {
+        if (closed) {
+            return false;
+        }
+        final long position = tail;
+        while (position - head == buffer.length) {
+            if (overflow == CopyThrough.Overflow.DISCARD || !awaitSpace()) {
+                // only the producer updates the count
+                dropped++;
+                return true;
+            }
+        }
+        buffer[(int) (position % buffer.length)] = aByte;
+        tail = position + 1;
+        if (sleeping) {
+            sleeping = false;
+            LockSupport.unpark(drainer);
+        }
+        return true;
+    }
+
+    private boolean awaitSpace() {
+        LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        return !Thread.currentThread().isInterrupted() && !closed;
+    }
+
+    @Override
+    public void flush() {
+        synchronized (drainedMonitor) {
+            try {
+                while ((head != tail || writing) && drainer.isAlive()) {
+                    drainedMonitor.wait(CLOSE_TIMEOUT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(drainer);
+    }
+
+    @Override
+    public long dropped() {
+        return dropped;
+    }
+
+    private void drain() {
+        final byte[] chunk = new byte[Math.min(MAX_WRITE, buffer.length)];
+        while (true) {
+            final int length = take(chunk);
+            if (length < 0) {
+                signalDrained();
+                return;
+            }
+            try {
+                target.write(chunk, 0, length);
+                target.flush();
+            } catch (IOException e) {
+                // the original stream is unavailable; the bytes are lost, as they would be when written directly
+            }
+            writing = false;
+            if (head == tail) {
+                signalDrained();
+            }
+        }
+    }
+
+    private void signalDrained() {
+        synchronized (drainedMonitor) {
+            drainedMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Remove up to a chunk of queued bytes, waiting until there are some.
+     *
+     * @return the number of bytes, or -1 when closed
+     */
+    private int take(final byte[] chunk) {
+        while (tail == head) {
+            if (closed) {
+                return -1;
+            }
+            // the producer wakes the drainer when it sees this flag; checking again after setting it means a byte
+            // queued in between is not missed
+            sleeping = true;
+            if (tail == head && !closed) {
+                LockSupport.park(this);
+            }
+            sleeping = false;
+        }
+        final long start = head;
+        final int length = (int) Math.min(tail - start, chunk.length);
+        final int offset = (int) (start % buffer.length);
+        final int first = Math.min(length, buffer.length - offset);
+        System.arraycopy(buffer, offset, chunk, 0, first);
+        System.arraycopy(buffer, 0, chunk, first, length - first);
+        writing = true;
+        head = start + length;
+        return length;
+    }
+}
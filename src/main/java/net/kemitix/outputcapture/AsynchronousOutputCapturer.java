@@ -23,7 +23,6 @@ package net.kemitix.outputcapture;
 
 import lombok.val;
 
-import java.io.ByteArrayOutputStream;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -40,21 +39,25 @@ class AsynchronousOutputCapturer extends AbstractCaptureOutput {
     private final Function<RouterParameters, Router> routerFactory;
     private final Long maxAwaitMilliseconds;
     private final ExecutorService executor;
+    private final CaptureOptions options;
 
     /**
      * Constructor.
      * @param routerFactory        The Router to direct where written output is sent
      * @param maxAwaitMilliseconds The maximum number of milliseconds to await for the capture to complete
      * @param executor             The executor service
+     * @param options              The capture options
      */
     AsynchronousOutputCapturer(
             final Function<RouterParameters, Router> routerFactory,
             final Long maxAwaitMilliseconds,
-            final ExecutorService executor
+            final ExecutorService executor,
+            final CaptureOptions options
     ) {
         this.routerFactory = routerFactory;
         this.maxAwaitMilliseconds = maxAwaitMilliseconds;
         this.executor = executor;
+        this.options = options;
     }
 
     /**
@@ -67,7 +70,7 @@ class AsynchronousOutputCapturer extends AbstractCaptureOutput {
      * @return an instance of OngoingCapturedOutput
      */
     OngoingCapturedOutput capture(final ThrowingCallable callable) {
-        val capturedOutput = new AtomicReference<OngoingCapturedOutput>();
+        val capturedOutput = new AtomicReference<DefaultOngoingCapturedOutput>();
         val started = new SafeLatch(1, maxAwaitMilliseconds, executor::shutdown);
         execute(callable, capturedOutput, started);
         started.await();
@@ -76,41 +79,81 @@ class AsynchronousOutputCapturer extends AbstractCaptureOutput {
 
     private void execute(
             final ThrowingCallable callable,
-            final AtomicReference<OngoingCapturedOutput> capturedOutput,
+            final AtomicReference<DefaultOngoingCapturedOutput> capturedOutput,
             final SafeLatch started
     ) {
         val completedLatch = new SafeLatch(1, maxAwaitMilliseconds, executor::shutdown);
-        executor.submit(buildCaptor(capturedOutput, completedLatch));
+        val captureContext = CaptureContext.current().child();
+        val sampled = options.getSampler().sample(callable.getClass());
+        val cancellation = new Cancellation();
+        val expecting = new AtomicReference<ExpectingLines>();
+        executor.submit(buildCaptor(capturedOutput, expecting, cancellation, completedLatch, sampled, captureContext,
+                callable.getClass()));
         executor.submit(started::countDown);
         executor.submit(() -> enable(capturedOutput.get()));
-        executor.submit(() -> invokeCallable(callable));
+        executor.submit(() -> {
+            if (cancellation.start()) {
+                invokeCallable(withinContext(callable, captureContext, options));
+            }
+            cancellation.end();
+        });
         executor.submit(() -> disable(capturedOutput.get()));
+        executor.submit(() -> reportDivergence(expecting.get(), capturedOutput.get()));
+        executor.submit(() -> complete(capturedOutput.get(), getThrownExceptionReference().get() != null)
+                .ifPresent(this::reportFlushFailure));
+        executor.submit(() -> capturedOutput.get().getSignal().finish());
         executor.submit(() -> {
             executor.shutdown();
             completedLatch.countDown();
         });
     }
 
+    private void reportDivergence(final ExpectingLines expecting, final DefaultOngoingCapturedOutput capturedOutput) {
+        expecting.finish();
+        expecting.failure(getThrownExceptionReference().get(), capturedOutput)
+                .ifPresent(getThrownExceptionReference()::set);
+    }
+
+    private void reportFlushFailure(final OutputCaptureException failure) {
+        if (!getThrownExceptionReference().compareAndSet(null, failure)) {
+            getThrownExceptionReference().get().addSuppressed(failure);
+        }
+    }
+
     private Runnable buildCaptor(
-            final AtomicReference<OngoingCapturedOutput> capturedOutput,
-            final SafeLatch completedLatch
+            final AtomicReference<DefaultOngoingCapturedOutput> capturedOutput,
+            final AtomicReference<ExpectingLines> expecting,
+            final Cancellation cancellation,
+            final SafeLatch completedLatch,
+            final boolean sampled,
+            final CaptureContext captureContext,
+            final Object key
     ) {
-        return () -> capturedOutput.set(outputCaptor(completedLatch));
+        return () -> {
+            val store = CaptureStore.create(sampled, options, key);
+            expecting.set(new ExpectingLines(options, cancellation));
+            val listener = MatchingLines.of(options).andThen(expecting.get().listener());
+            capturedOutput.set(outputCaptor(store, listener, completedLatch, captureContext));
+        };
     }
 
-    private OngoingCapturedOutput outputCaptor(final SafeLatch completedLatch) {
-        val capturedOut = new ByteArrayOutputStream();
-        val capturedErr = new ByteArrayOutputStream();
-        val router = routerFactory.apply(RouterParameters.createDefault());
-        val capturedLines = router.getCapturedLines();
+    private DefaultOngoingCapturedOutput outputCaptor(
+            final CaptureStore store,
+            final LineListener listener,
+            final SafeLatch completedLatch,
+            final CaptureContext captureContext
+    ) {
+        val signal = new LineSignal(store.getCapturedLines());
+        store.listen(listener.andThen(signal));
+        val router = routerFactory.apply(RouterParameters.create(signal, captureContext, options));
         return new DefaultOngoingCapturedOutput(
-                capturedOut,
-                capturedErr,
+                store,
+                signal,
                 completedLatch,
                 getThrownExceptionReference(),
                 router,
                 executor,
-                capturedLines
+                options
         );
     }
 
@@ -0,0 +1,132 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Capture the output of many callables, running them in parallel, and return the captured outputs in order.
+ *
+ * <p>Every callable is run within one {@link KeyedCaptureOutput}, with the worker thread bound to the callable's own
+ * capture while it runs, so the cost of routing each write does not grow with the number of callables or
+ * threads.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class BatchCapturer {
+
+    private final int parallelism;
+    private final CaptureOptions options;
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism the number of callables to run at once
+     * @param options     the capture options
+     */
+    BatchCapturer(final int parallelism, final CaptureOptions options) {
+        this.parallelism = parallelism;
+        this.options = options;
+    }
+
+    /**
+     * Capture the output of each callable, after all of them have completed.
+     *
+     * @param callables the callables
+     * @return the captured output of each callable, in the same order as the callables
+     * @throws OutputCaptureException for the first callable that threw an exception, holding that callable's captured
+     *                                output, with the exceptions thrown by any later callables suppressed
+     */
+    List<CapturedOutput> captureAll(final Collection<? extends ThrowingCallable> callables) {
+        final List<ThrowingCallable> ordered = new ArrayList<>(callables);
+        final Exception[] thrown = new Exception[ordered.size()];
+        final List<CapturedOutput> results = new ArrayList<>(ordered.size());
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (KeyedCaptureOutput captures = KeyedCaptureOutput.of(options)) {
+            final List<Callable<Void>> tasks = new ArrayList<>(ordered.size());
+            for (int i = 0; i < ordered.size(); i++) {
+                tasks.add(task(captures, i, ordered.get(i), thrown));
+            }
+            awaitAll(pool.invokeAll(tasks));
+            for (int i = 0; i < ordered.size(); i++) {
+                results.add(captures.remove(i, thrown[i] != null).orElseThrow(IllegalStateException::new));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        throwAnyExceptions(thrown, results);
+        return results;
+    }
+
+    @SuppressWarnings({"illegalcatch", "try"})
+    private static Callable<Void> task(
+            final KeyedCaptureOutput captures,
+            final int index,
+            final ThrowingCallable callable,
+            final Exception[] thrown
+    ) {
+        return () -> {
+            try (KeyedCaptureOutput.Binding binding = captures.bind(index)) {
+                callable.call();
+            } catch (Exception e) {
+                thrown[index] = e;
+            }
+            return null;
+        };
+    }
+
+    private static void awaitAll(final List<Future<Void>> futures) {
+        try {
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OutputCaptureException(e);
+        } catch (ExecutionException e) {
+            throw new OutputCaptureException(e);
+        }
+    }
+
+    private static void throwAnyExceptions(final Exception[] thrown, final List<CapturedOutput> results) {
+        OutputCaptureException failure = null;
+        for (int i = 0; i < thrown.length; i++) {
+            if (thrown[i] == null) {
+                continue;
+            }
+            if (failure == null) {
+                failure = new OutputCaptureException(thrown[i], results.get(i));
+            } else {
+                failure.addSuppressed(thrown[i]);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+/**
+ * A destination for output copied through to an original stream.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+interface ByteSink {
+
+    /**
+     * Accept a byte.
+     *
+     * @param aByte the byte
+     * @return false if the sink is closed and the byte was not accepted
+     */
+    boolean offer(byte aByte);
+
+    /**
+     * Accept a range of bytes.
+     *
+     * @param bytes  the source of the bytes
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     */
+    default void offer(final byte[] bytes, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            offer(bytes[i]);
+        }
+    }
+
+    /**
+     * Write any bytes being held.
+     */
+    void flush();
+
+    /**
+     * Write any bytes being held and stop accepting bytes.
+     */
+    void close();
+
+    /**
+     * The number of bytes accepted but not written.
+     *
+     * @return the number of bytes
+     */
+    long dropped();
+}
@@ -0,0 +1,359 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A compact, immutable copy of a captured output: the bytes written to each stream, with an index of where each line
+ * ends and the sequence number of each line.
+ *
+ * <p>Lines are decoded from the bytes only when they are streamed.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+final class CachedCapture implements CapturedLines {
+
+    private static final int INDEX_ENTRY_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int MAGIC = 0x4f434150;
+    private static final int VERSION = 1;
+
+    private final CaptureOptions options;
+    private final int separatorLength;
+    private final byte[] out;
+    private final byte[] err;
+    private final int[] outEnds;
+    private final int[] errEnds;
+    private final long[] outSequences;
+    private final long[] errSequences;
+
+    /**
+     * Constructor.
+     *
+     * @param options      the options the output was captured with
+     * @param out          the bytes written to standard out
+     * @param err          the bytes written to standard error
+     * @param outEnds      the offset of the end of each standard out line, before its separator
+     * @param errEnds      the offset of the end of each standard error line, before its separator
+     * @param outSequences the sequence number of each standard out line
+     * @param errSequences the sequence number of each standard error line
+     */
+    CachedCapture(
+            final CaptureOptions options,
+            final byte[] out,
+            final byte[] err,
+            final int[] outEnds,
+            final int[] errEnds,
+            final long[] outSequences,
+            final long[] errSequences
+    ) {
+        this.options = options;
+        this.separatorLength = separator(options).length;
+        this.out = out;
+        this.err = err;
+        this.outEnds = outEnds;
+        this.errEnds = errEnds;
+        this.outSequences = outSequences;
+        this.errSequences = errSequences;
+    }
+
+    /**
+     * Whether a captured output may be cached, as it holds all of the output of its callable.
+     *
+     * <p>Output that was not recorded, as when the capture was not sampled, wrote to a sink or kept its output only
+     * on failure, is not cached, so that later requests capture the callable again rather than being given empty
+     * output.</p>
+     *
+     * @param captured the captured output
+     * @return true if the output can be cached
+     */
+    static boolean isCacheable(final CapturedOutput captured) {
+        return !(captured instanceof DefaultCapturedOutput) || ((DefaultCapturedOutput) captured).isWhole();
+    }
+
+    /**
+     * Copy a captured output.
+     *
+     * @param captured the captured output
+     * @param options  the options the output was captured with
+     * @return the copy
+     */
+    static CachedCapture of(final CapturedOutput captured, final CaptureOptions options) {
+        final byte[] separator = separator(options);
+        final byte[] out = captured.out().toByteArray();
+        final byte[] err = captured.err().toByteArray();
+        final int[] outEnds = lineEnds(out, separator);
+        final int[] errEnds = lineEnds(err, separator);
+        final CapturedOutputLine[] lines = captured.stream().toArray(CapturedOutputLine[]::new);
+        return new CachedCapture(options, out, err, outEnds, errEnds,
+                sequences(lines, true, outEnds, out.length), sequences(lines, false, errEnds, err.length));
+    }
+
+    private static byte[] separator(final CaptureOptions options) {
+        return options.lineSeparatorBytes();
+    }
+
+    /**
+     * Find where each line in the bytes ends, including any final line without a separator.
+     *
+     * @param bytes     the captured bytes
+     * @param separator the line separator
+     * @return the offset after the last byte of each line, excluding its separator
+     */
+    static int[] lineEnds(final byte[] bytes, final byte[] separator) {
+        final IntStream.Builder ends = IntStream.builder();
+        final int[] position = {0};
+        new LineSplitter(separator, (line, offset, length) -> {
+            ends.add(position[0] + length);
+            position[0] += length + separator.length;
+        }).write(bytes, 0, bytes.length);
+        if (position[0] < bytes.length) {
+            ends.add(bytes.length);
+        }
+        return ends.build().toArray();
+    }
+
+    /**
+     * The number of lines that end with a separator.
+     *
+     * <p>A final line without a separator is not one of the captured lines, as it was never completed.</p>
+     *
+     * @param ends   the line ends, from {@link #lineEnds(byte[], byte[])}
+     * @param length the number of bytes the lines were found in
+     * @return the number of lines
+     */
+    static int completeLines(final int[] ends, final int length) {
+        if (ends.length > 0 && ends[ends.length - 1] == length) {
+            return ends.length - 1;
+        }
+        return ends.length;
+    }
+
+    /**
+     * The sequence numbers of the captured lines, followed by new ones for a final line without a separator, or new
+     * ones for every line if the lines no longer match the captured bytes.
+     */
+    private static long[] sequences(
+            final CapturedOutputLine[] lines,
+            final boolean isOut,
+            final int[] ends,
+            final int length
+    ) {
+        final long[] sequences = Arrays.stream(lines)
+                .filter(line -> line.isOut() == isOut)
+                .mapToLong(CapturedOutputLine::sequence)
+                .toArray();
+        final int kept = sequences.length == completeLines(ends, length) ? sequences.length : 0;
+        final long[] numbered = Arrays.copyOf(sequences, ends.length);
+        for (int i = kept; i < ends.length; i++) {
+            numbered[i] = LineSequence.next();
+        }
+        return numbered;
+    }
+
+    /**
+     * The approximate memory held by the copy.
+     *
+     * @return the size in bytes
+     */
+    long size() {
+        return (long) out.length + err.length + (long) (outEnds.length + errEnds.length) * INDEX_ENTRY_BYTES;
+    }
+
+    /**
+     * Create a captured output holding the copy.
+     *
+     * @return the captured output
+     */
+    CapturedOutput toCapturedOutput() {
+        return new DefaultCapturedOutput(
+                CaptureStore.unpooled(toStream(out), toStream(err), this),
+                new PromiscuousCopyRouter(this),
+                options);
+    }
+
+    private static ByteArrayOutputStream toStream(final byte[] bytes) {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream(bytes.length);
+        stream.write(bytes, 0, bytes.length);
+        return stream;
+    }
+
+    /**
+     * Write the copy in its binary form.
+     *
+     * <p>The form is a header of magic number and version, the charset and line separator, then for each of standard
+     * out and standard error the bytes, followed by the line ends and line sequence numbers. All numbers are big
+     * endian.</p>
+     *
+     * @param output the destination
+     * @throws IOException if there is an error writing
+     */
+    void writeTo(final DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        writeString(output, options.getCharset().name());
+        writeString(output, options.getLineSeparator());
+        writeBytes(output, out);
+        writeBytes(output, err);
+        writeIndex(output, outEnds, outSequences);
+        writeIndex(output, errEnds, errSequences);
+    }
+
+    private static void writeString(final DataOutputStream output, final String string) throws IOException {
+        writeBytes(output, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(final DataOutputStream output, final byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static void writeIndex(final DataOutputStream output, final int[] ends, final long[] sequences)
+            throws IOException {
+        output.writeInt(ends.length);
+        for (final int end : ends) {
+            output.writeInt(end);
+        }
+        for (final long sequence : sequences) {
+            output.writeLong(sequence);
+        }
+    }
+
+    /**
+     * Read a copy from its binary form, as written by {@link #writeTo(DataOutputStream)}.
+     *
+     * <p>Lines are given new sequence numbers in their original order, as the sequence numbers of another run do not
+     * compare with those of this one.</p>
+     *
+     * @param buffer the binary form
+     * @return the copy
+     * @throws IllegalArgumentException if the buffer does not hold a copy
+     */
+    static CachedCapture readFrom(final ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalArgumentException("Not a captured output");
+            }
+            final CaptureOptions options = CaptureOptions.defaults()
+                    .withCharset(Charset.forName(readString(buffer)))
+                    .withLineSeparator(readString(buffer));
+            final byte[] out = readBytes(buffer);
+            final byte[] err = readBytes(buffer);
+            final int[] outEnds = readEnds(buffer);
+            final long[] outSequences = readSequences(buffer, outEnds.length);
+            final int[] errEnds = readEnds(buffer);
+            final long[] errSequences = readSequences(buffer, errEnds.length);
+            renumber(outSequences, errSequences);
+            return new CachedCapture(options, out, err, outEnds, errEnds, outSequences, errSequences);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated captured output", e);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[length(buffer, Byte.BYTES)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static int[] readEnds(final ByteBuffer buffer) {
+        final int[] ends = new int[length(buffer, Integer.BYTES + Long.BYTES)];
+        buffer.asIntBuffer().get(ends);
+        buffer.position(buffer.position() + ends.length * Integer.BYTES);
+        return ends;
+    }
+
+    private static long[] readSequences(final ByteBuffer buffer, final int count) {
+        final long[] sequences = new long[count];
+        buffer.asLongBuffer().get(sequences);
+        buffer.position(buffer.position() + count * Long.BYTES);
+        return sequences;
+    }
+
+    /**
+     * Read a count of items, checking that the buffer holds that many.
+     */
+    private static int length(final ByteBuffer buffer, final int itemBytes) {
+        final int length = buffer.getInt();
+        if (length < 0 || (long) length * itemBytes > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+
+    /**
+     * Replace the sequence numbers, in place, with new ones in the same merged order.
+     */
+    private static void renumber(final long[] outSequences, final long[] errSequences) {
+        int o = 0;
+        int e = 0;
+        while (o < outSequences.length || e < errSequences.length) {
+            if (e == errSequences.length || (o < outSequences.length && outSequences[o] < errSequences[e])) {
+                outSequences[o++] = LineSequence.next();
+            } else {
+                errSequences[e++] = LineSequence.next();
+            }
+        }
+    }
+
+    @Override
+    public Stream<CapturedOutputLine> stream() {
+        return Timeline.merge(Arrays.asList(
+                lines(true, out, outEnds, outSequences),
+                lines(false, err, errEnds, errSequences)));
+    }
+
+    private CapturedOutputLine[] lines(final boolean isOut, final byte[] bytes, final int[] ends,
+                                       final long[] sequences) {
+        final CapturedOutputLine[] lines = new CapturedOutputLine[ends.length];
+        int start = 0;
+        for (int i = 0; i < ends.length; i++) {
+            final String string = new String(bytes, start, ends[i] - start, options.getCharset());
+            lines[i] = new DefaultCapturedOutputLine(isOut, string, sequences[i]);
+            start = ends[i] + separatorLength;
+        }
+        return lines;
+    }
+
+    @Override
+    public void writeOut(final Byte aByte) {
+        // a copy is never written to
+    }
+
+    @Override
+    public void writeErr(final Byte aByte) {
+        // a copy is never written to
+    }
+}
@@ -0,0 +1,75 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+/**
+ * Interrupts the thread running a captured callable, or prevents it from starting.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class Cancellation {
+
+    private Thread runner;
+    private boolean cancelled;
+
+    /**
+     * Record that the current thread is about to run the callable.
+     *
+     * @return false if the callable has been cancelled and should not be run
+     */
+    synchronized boolean start() {
+        runner = Thread.currentThread();
+        return !cancelled;
+    }
+
+    /**
+     * Record that the current thread has finished running the callable, clearing any interrupt made by
+     * {@link #cancel()}.
+     */
+    synchronized void end() {
+        runner = null;
+        if (cancelled) {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Interrupt the callable if it is running, or prevent it from starting.
+     */
+    synchronized void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Whether the callable has been cancelled.
+     *
+     * @return true if cancelled
+     */
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The capacity to presize a capture's buffers to, learned from the output of earlier captures with the same key.
+ *
+ * <p>Each hint follows a decaying maximum of the sizes observed: a larger capture raises it at once, while smaller
+ * captures lower it by an eighth each time, so one unusually large capture does not oversize every later one.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class CapacityHint {
+
+    /**
+     * The hint used when capacities are not learned, matching the defaults of ByteArrayOutputStream and ArrayList.
+     */
+    static final CapacityHint NONE = new CapacityHint();
+
+    private static final int DEFAULT_BYTES = 32;
+    private static final int DEFAULT_LINES = 10;
+    private static final int DECAY_SHIFT = 3;
+    private static final int MAX_KEYS = 4096;
+    private static final Map<Object, CapacityHint> HINTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private volatile int outBytes = DEFAULT_BYTES;
+    private volatile int errBytes = DEFAULT_BYTES;
+    private volatile int lines = DEFAULT_LINES;
+
+    /**
+     * The hint for a key, such as the class of the callable, which is distinct for each lambda expression.
+     *
+     * <p>Once hints are held for many keys, new keys use {@link #NONE}.</p>
+     *
+     * @param key the key
+     * @return the hint
+     */
+    static CapacityHint forKey(final Object key) {
+        synchronized (HINTS) {
+            final CapacityHint hint = HINTS.get(key);
+            if (hint != null) {
+                return hint;
+            }
+            if (HINTS.size() >= MAX_KEYS) {
+                return NONE;
+            }
+            final CapacityHint created = new CapacityHint();
+            HINTS.put(key, created);
+            return created;
+        }
+    }
+
+    /**
+     * The capacity for the standard output buffer.
+     *
+     * @return the capacity in bytes
+     */
+    int outBytes() {
+        return outBytes;
+    }
+
+    /**
+     * The capacity for the standard error buffer.
+     *
+     * @return the capacity in bytes
+     */
+    int errBytes() {
+        return errBytes;
+    }
+
+    /**
+     * The capacity for the list of captured lines.
+     *
+     * @return the number of lines
+     */
+    int lines() {
+        return lines;
+    }
+
+    /**
+     * Learn from the size of a completed capture.
+     *
+     * <p>Concurrent captures with the same key may lose each other's updates, which only makes the hint less
+     * accurate.</p>
+     *
+     * @param observedOut   the bytes written to standard output
+     * @param observedErr   the bytes written to standard error
+     * @param observedLines the number of lines captured
+     */
+    void record(final int observedOut, final int observedErr, final int observedLines) {
+        if (this == NONE) {
+            return;
+        }
+        outBytes = decayedMax(outBytes, observedOut, DEFAULT_BYTES);
+        errBytes = decayedMax(errBytes, observedErr, DEFAULT_BYTES);
+        lines = decayedMax(lines, observedLines, DEFAULT_LINES);
+    }
+
+    private static int decayedMax(final int current, final int observed, final int minimum) {
+        return Math.max(minimum, Math.max(observed, current - (current >> DECAY_SHIFT)));
+    }
+}
@@ -34,29 +34,32 @@ interface Captors {
      * Create an {@link CaptureOutput} instance that will intercept and capture output synchronously for a single
      * thread.
      *
+     * @param options the capture options
      * @return A redirecting and synchronous CaptureOutput tied to a single thread
      */
-    static SynchronousOutputCapturer syncRedirectThread() {
-        return new SynchronousOutputCapturer(ThreadFilteredRedirectRouter::new);
+    static SynchronousOutputCapturer syncRedirectThread(final CaptureOptions options) {
+        return new SynchronousOutputCapturer(ThreadFilteredRedirectRouter::new, options);
     }
 
     /**
      * Create an {@link CaptureOutput} instance that will capture output synchronously for a single thread.
      *
+     * @param options the capture options
      * @return A copying and synchronous CaptureOutput tied to a single thread
      */
-    static SynchronousOutputCapturer syncCopy() {
-        return new SynchronousOutputCapturer(ThreadFilteredCopyRouter::new);
+    static SynchronousOutputCapturer syncCopy(final CaptureOptions options) {
+        return new SynchronousOutputCapturer(ThreadFilteredCopyRouter::new, options);
     }
 
     /**
      * Create an {@link CaptureOutput} instance that will intercept and capture output synchronously from all threads.
      *
+     * @param options the capture options
      * @return A redirecting and synchronous CaptureOutput
      */
-    static SynchronousOutputCapturer syncRedirectAll() {
+    static SynchronousOutputCapturer syncRedirectAll(final CaptureOptions options) {
         return new SynchronousOutputCapturer(
-                routerParameters -> new PromiscuousRedirectRouter(routerParameters.getCapturedLines()));
+                routerParameters -> new PromiscuousRedirectRouter(routerParameters.getCapturedLines()), options);
     }
 
     /**
@@ -64,47 +67,65 @@ interface Captors {
      * thread.
      *
      * @param maxAwaitMilliseconds the maximum number of milliseconds to await for the capture to complete
+     * @param options              the capture options
      * @return A redirecting and asynchronous CaptureOutput tied to a single thread
      */
-    static AsynchronousOutputCapturer asyncRedirectThread(final Long maxAwaitMilliseconds) {
+    static AsynchronousOutputCapturer asyncRedirectThread(
+            final Long maxAwaitMilliseconds,
+            final CaptureOptions options
+    ) {
         return new AsynchronousOutputCapturer(ThreadFilteredRedirectRouter::new, maxAwaitMilliseconds,
-                Executors.newSingleThreadExecutor());
+                Executors.newSingleThreadExecutor(), options);
     }
 
     /**
      * Create an {@link CaptureOutput} instance that will capture output asynchronously for a single thread.
      *
      * @param maxAwaitMilliseconds the maximum number of milliseconds to await for the capture to complete
+     * @param options              the capture options
      * @return A copying and asynchronous CaptureOutput tied to a single thread
      */
-    static AsynchronousOutputCapturer asyncCopyThread(final Long maxAwaitMilliseconds) {
+    static AsynchronousOutputCapturer asyncCopyThread(
+            final Long maxAwaitMilliseconds,
+            final CaptureOptions options
+    ) {
         return new AsynchronousOutputCapturer(ThreadFilteredCopyRouter::new, maxAwaitMilliseconds,
-                Executors.newSingleThreadExecutor());
+                Executors.newSingleThreadExecutor(), options);
     }
 
     /**
      * Create an {@link CaptureOutput} instance that will intercept and capture output asynchronously from all threads.
      *
      * @param maxAwaitMilliseconds the maximum number of milliseconds to await for the capture to complete
+     * @param options              the capture options
      * @return A redirecting and asynchronous CaptureOutput
      */
-    static AsynchronousOutputCapturer asyncRedirectAll(final Long maxAwaitMilliseconds) {
+    static AsynchronousOutputCapturer asyncRedirectAll(
+            final Long maxAwaitMilliseconds,
+            final CaptureOptions options
+    ) {
         return new AsynchronousOutputCapturer(
                 routerParameters -> new PromiscuousRedirectRouter(routerParameters.getCapturedLines()),
                 maxAwaitMilliseconds,
-                Executors.newSingleThreadExecutor());
+                Executors.newSingleThreadExecutor(),
+                options);
     }
 
     /**
      * Create an {@link CaptureOutput} instance that will capture output asynchronously from all threads.
      *
      * @param maxAwaitMilliseconds the maximum number of milliseconds to await for the capture to complete
+     * @param options              the capture options
      * @return A copying and asynchronous CaptureOutput
      */
-    static AsynchronousOutputCapturer asyncCopyAll(final Long maxAwaitMilliseconds) {
+    static AsynchronousOutputCapturer asyncCopyAll(
+            final Long maxAwaitMilliseconds,
+            final CaptureOptions options
+    ) {
         return new AsynchronousOutputCapturer(
                 routerParameters -> new PromiscuousCopyRouter(routerParameters.getCapturedLines()),
                 maxAwaitMilliseconds,
-                Executors.newSingleThreadExecutor());
+                Executors.newSingleThreadExecutor(),
+                options);
     }
 }
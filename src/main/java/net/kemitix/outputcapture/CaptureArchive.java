@@ -0,0 +1,442 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+/**
+ * Captured output stored in a binary archive file, read lazily from a memory mapping of the file.
+ *
+ * <p>The archive holds the bytes written to each stream, an index with an entry for each line and the metadata given
+ * when it was written. Lines are indexed in the order they were completed, followed by any final line of each stream
+ * that has no line separator. Opening an archive reads only its header and metadata, and each line is read from the
+ * mapping when it is requested.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * CaptureArchive.write(CaptureOutput.of(build::run), Paths.get("build.oca"));
+ * try (CaptureArchive archive = CaptureArchive.open(Paths.get("build.oca"))) {
+ *     archive.getStdErr().filter(line -> line.contains("WARN")).forEach(System.out::println);
+ * }
+ * }</pre>
+ *
+ * <p>The file starts with a header of the magic number {@code 0x4f434152}, the format version, the lengths of the
+ * standard out bytes, the standard error bytes and the metadata, and the number of lines. The metadata, standard
+ * out, standard error and line index follow. The metadata is a count of entries, each a key and a value as a length
+ * and UTF-8 bytes. Each index entry is the offset of the line within its stream, with the top bit set for standard
+ * error, the length of the line and its timestamp, or {@link Long#MIN_VALUE} if it has none. All numbers are big
+ * endian.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class CaptureArchive implements CapturedOutput {
+
+    /**
+     * The metadata key of the charset that the lines were captured with.
+     */
+    public static final String CHARSET = "charset";
+
+    /**
+     * The metadata key of the line separator that the lines were captured with.
+     */
+    public static final String LINE_SEPARATOR = "lineSeparator";
+
+    private static final int MAGIC = 0x4f434152;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 3 + Long.BYTES * 3;
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final long ERR_FLAG = Long.MIN_VALUE;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final int COPY_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final Map<String, String> metadata;
+    private final Charset charset;
+    private final MappedRegion out;
+    private final MappedRegion err;
+    private final MappedRegion index;
+    private final int lineCount;
+    private final long firstSequence;
+
+    private CaptureArchive(
+            final FileChannel channel,
+            final Map<String, String> metadata,
+            final MappedRegion out,
+            final MappedRegion err,
+            final MappedRegion index,
+            final int lineCount
+    ) {
+        this.channel = channel;
+        this.metadata = Collections.unmodifiableMap(metadata);
+        this.charset = Charset.forName(metadata.get(CHARSET));
+        this.out = out;
+        this.err = err;
+        this.index = index;
+        this.lineCount = lineCount;
+        this.firstSequence = LineSequence.reserve(lineCount);
+    }
+
+    /**
+     * Write captured output to an archive file, splitting lines using the default options.
+     *
+     * @param captured the captured output
+     * @param file     the file to write, which is replaced if it exists
+     * @throws OutputCaptureException if the file can not be written
+     */
+    public static void write(final CapturedOutput captured, final Path file) {
+        write(captured, CaptureOptions.defaults(), Collections.emptyMap(), file);
+    }
+
+    /**
+     * Write captured output to an archive file.
+     *
+     * <p>The order lines were completed in, and their timestamps, are kept when the lines of the captured output match
+     * those split from its bytes. When they do not match, such as when the options are not those the output was
+     * captured with, all the lines of standard out are indexed before those of standard error, without
+     * timestamps.</p>
+     *
+     * @param captured the captured output
+     * @param options  the options the output was captured with, giving the charset and line separator
+     * @param metadata entries to store in the archive, which may not use the keys {@link #CHARSET} or
+     *                 {@link #LINE_SEPARATOR}
+     * @param file     the file to write, which is replaced if it exists
+     * @throws IllegalArgumentException if the metadata uses a reserved key
+     * @throws OutputCaptureException   if the file can not be written
+     */
+    public static void write(
+            final CapturedOutput captured,
+            final CaptureOptions options,
+            final Map<String, String> metadata,
+            final Path file
+    ) {
+        if (metadata.containsKey(CHARSET) || metadata.containsKey(LINE_SEPARATOR)) {
+            throw new IllegalArgumentException("Metadata keys " + CHARSET + " and " + LINE_SEPARATOR + " are reserved");
+        }
+        final byte[] separator = options.lineSeparatorBytes();
+        final byte[] outBytes = captured.out().toByteArray();
+        final byte[] errBytes = captured.err().toByteArray();
+        final int[] outEnds = CachedCapture.lineEnds(outBytes, separator);
+        final int[] errEnds = CachedCapture.lineEnds(errBytes, separator);
+        final Map<String, String> entries = new LinkedHashMap<>();
+        entries.put(CHARSET, options.getCharset().name());
+        entries.put(LINE_SEPARATOR, options.getLineSeparator());
+        entries.putAll(metadata);
+        final byte[] metadataBytes = encode(entries);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(outBytes.length);
+            output.writeLong(errBytes.length);
+            output.writeInt(metadataBytes.length);
+            output.writeLong(outEnds.length + errEnds.length);
+            output.write(metadataBytes);
+            output.write(outBytes);
+            output.write(errBytes);
+            writeIndex(output, captured.timeline().toArray(CapturedOutputLine[]::new),
+                    outEnds, CachedCapture.completeLines(outEnds, outBytes.length),
+                    errEnds, CachedCapture.completeLines(errEnds, errBytes.length),
+                    separator.length);
+        } catch (IOException e) {
+            throw new OutputCaptureException(e);
+        }
+    }
+
+    private static byte[] encode(final Map<String, String> entries) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(entries.size());
+            for (final Map.Entry<String, String> entry : entries.entrySet()) {
+                writeString(output, entry.getKey());
+                writeString(output, entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new OutputCaptureException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(final DataOutputStream output, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Write an entry for each line, in the order they were completed when the captured lines match those found in
+     * the bytes, followed by any final lines without a separator.
+     */
+    private static void writeIndex(
+            final DataOutputStream output,
+            final CapturedOutputLine[] lines,
+            final int[] outEnds,
+            final int outComplete,
+            final int[] errEnds,
+            final int errComplete,
+            final int separatorLength
+    ) throws IOException {
+        final long outLines = Stream.of(lines).filter(CapturedOutputLine::isOut).count();
+        final boolean matched = outLines == outComplete && lines.length - outLines == errComplete;
+        int nextOut = 0;
+        int nextErr = 0;
+        for (int i = 0; i < outComplete + errComplete; i++) {
+            final boolean isOut = matched ? lines[i].isOut() : nextOut < outComplete;
+            final OptionalLong timestamp = matched ? lines[i].timestamp() : OptionalLong.empty();
+            if (isOut) {
+                writeEntry(output, 0, outEnds, nextOut++, separatorLength, timestamp);
+            } else {
+                writeEntry(output, ERR_FLAG, errEnds, nextErr++, separatorLength, timestamp);
+            }
+        }
+        if (nextOut < outEnds.length) {
+            writeEntry(output, 0, outEnds, nextOut, separatorLength, OptionalLong.empty());
+        }
+        if (nextErr < errEnds.length) {
+            writeEntry(output, ERR_FLAG, errEnds, nextErr, separatorLength, OptionalLong.empty());
+        }
+    }
+
+    private static void writeEntry(
+            final DataOutputStream output,
+            final long flag,
+            final int[] ends,
+            final int line,
+            final int separatorLength,
+            final OptionalLong timestamp
+    ) throws IOException {
+        final int start = line == 0 ? 0 : ends[line - 1] + separatorLength;
+        output.writeLong(flag | start);
+        output.writeInt(ends[line] - start);
+        output.writeLong(timestamp.orElse(NO_TIMESTAMP));
+    }
+
+    /**
+     * Open an archive file.
+     *
+     * @param file the file
+     * @return the archive, which should be closed when no longer needed
+     * @throws IllegalArgumentException if the file is not a capture archive
+     * @throws OutputCaptureException   if the file can not be read
+     */
+    public static CaptureArchive open(final Path file) {
+        try {
+            final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                return open(channel);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new OutputCaptureException(e);
+        }
+    }
+
+    private static CaptureArchive open(final FileChannel channel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        int read = 0;
+        while (header.hasRemaining() && read >= 0) {
+            read = channel.read(header);
+        }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a capture archive");
+        }
+        final long outLength = header.getLong();
+        final long errLength = header.getLong();
+        final int metadataLength = header.getInt();
+        final long lineCount = header.getLong();
+        final long outStart = HEADER_BYTES + (long) metadataLength;
+        final long indexStart = outStart + outLength + errLength;
+        if (outLength < 0 || errLength < 0 || metadataLength < 0 || lineCount < 0 || lineCount > Integer.MAX_VALUE
+                || indexStart + lineCount * ENTRY_BYTES != channel.size()) {
+            throw new IllegalArgumentException("Truncated capture archive");
+        }
+        final Map<String, String> metadata = decode(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+                metadataLength));
+        return new CaptureArchive(channel, metadata,
+                new MappedRegion(channel, outStart, outLength),
+                new MappedRegion(channel, outStart + outLength, errLength),
+                new MappedRegion(channel, indexStart, lineCount * ENTRY_BYTES),
+                (int) lineCount);
+    }
+
+    private static Map<String, String> decode(final ByteBuffer buffer) {
+        try {
+            final int count = buffer.getInt();
+            final Map<String, String> entries = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                entries.put(readString(buffer), readString(buffer));
+            }
+            if (!entries.containsKey(CHARSET) || !entries.containsKey(LINE_SEPARATOR)) {
+                throw new IllegalArgumentException("Capture archive metadata is incomplete");
+            }
+            return entries;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated capture archive metadata", e);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The metadata stored in the archive, including its {@link #CHARSET} and {@link #LINE_SEPARATOR}.
+     *
+     * @return the metadata
+     */
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * The number of lines in the archive.
+     *
+     * @return the number of lines
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Read a single line from the archive.
+     *
+     * @param line the position of the line in the index
+     * @return the line
+     */
+    public CapturedOutputLine line(final int line) {
+        if (line < 0 || line >= lineCount) {
+            throw new IndexOutOfBoundsException("line " + line);
+        }
+        final byte[] entry = new byte[ENTRY_BYTES];
+        index.read((long) line * ENTRY_BYTES, entry, 0, ENTRY_BYTES);
+        final ByteBuffer fields = ByteBuffer.wrap(entry);
+        final long position = fields.getLong();
+        final boolean isErr = (position & ERR_FLAG) != 0;
+        final byte[] bytes = new byte[fields.getInt()];
+        final long timestamp = fields.getLong();
+        (isErr ? err : out).read(position & ~ERR_FLAG, bytes, 0, bytes.length);
+        return new ArchivedLine(!isErr, new String(bytes, charset), firstSequence + line, timestamp);
+    }
+
+    @Override
+    public Stream<CapturedOutputLine> stream() {
+        return IndexedSpliterator.stream(this::line, lineCount);
+    }
+
+    @Override
+    public Stream<CapturedOutputLine> timeline() {
+        return stream();
+    }
+
+    @Override
+    public Stream<String> getStdOut() {
+        return stream().filter(CapturedOutputLine::isOut).map(CapturedOutputLine::asString);
+    }
+
+    @Override
+    public Stream<String> getStdErr() {
+        return stream().filter(CapturedOutputLine::isErr).map(CapturedOutputLine::asString);
+    }
+
+    /**
+     * A copy of the standard out bytes, which are read into memory in full.
+     *
+     * @return the bytes written to standard out
+     */
+    @Override
+    public ByteArrayOutputStream out() {
+        return copy(out);
+    }
+
+    /**
+     * A copy of the standard error bytes, which are read into memory in full.
+     *
+     * @return the bytes written to standard error
+     */
+    @Override
+    public ByteArrayOutputStream err() {
+        return copy(err);
+    }
+
+    private static ByteArrayOutputStream copy(final MappedRegion region) {
+        final ByteArrayOutputStream copy = new ByteArrayOutputStream((int) region.length());
+        final byte[] chunk = new byte[COPY_BYTES];
+        for (long position = 0; position < region.length(); position += COPY_BYTES) {
+            final int count = (int) Math.min(COPY_BYTES, region.length() - position);
+            region.read(position, chunk, 0, count);
+            copy.write(chunk, 0, count);
+        }
+        return copy;
+    }
+
+    /**
+     * Close the archive file.
+     *
+     * <p>The mapping is released when the archive is garbage collected.</p>
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new OutputCaptureException(e);
+        }
+    }
+
+    /**
+     * A line read from an archive, with the timestamp stored for it.
+     */
+    private static final class ArchivedLine extends DefaultCapturedOutputLine {
+
+        private final long timestamp;
+
+        ArchivedLine(final boolean out, final String string, final long sequence, final long timestamp) {
+            super(out, string, sequence);
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public OptionalLong timestamp() {
+            return timestamp == NO_TIMESTAMP ? OptionalLong.empty() : OptionalLong.of(timestamp);
+        }
+    }
+}
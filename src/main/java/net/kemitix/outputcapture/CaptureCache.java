@@ -0,0 +1,161 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A cache of captured output, for callables that always write the same output for the same key.
+ *
+ * <p>The first capture for a key runs the callable and stores a compact copy of its output. Later captures for the
+ * key return the copy without running the callable. When the copies held exceed the cache's size, the least recently
+ * used are evicted.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * CaptureCache cache = CaptureCache.ofMaxBytes(10_000_000);
+ * CapturedOutput report = cache.capture(reportInputs, () -> generateReport(reportInputs));
+ * }</pre>
+ *
+ * <p>Output is only cached when the callable completes without throwing. Two threads capturing the same missing key
+ * at the same time will both run the callable.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class CaptureCache {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final long maxBytes;
+    private final Map<Object, CachedCapture> entries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    private long bytes;
+
+    private CaptureCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Create a cache that holds no more than the given size of captured output.
+     *
+     * @param maxBytes the maximum size of the cached output in bytes
+     * @return the cache
+     */
+    public static CaptureCache ofMaxBytes(final long maxBytes) {
+        return new CaptureCache(maxBytes);
+    }
+
+    /**
+     * Capture the output of the callable, or return the output cached for the key.
+     *
+     * @param key      the key identifying the callable and its inputs
+     * @param callable the callable to capture the output of
+     * @return the captured output
+     */
+    public CapturedOutput capture(final Object key, final ThrowingCallable callable) {
+        return capture(key, callable, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture the output of the callable, or return the output cached for the key.
+     *
+     * <p>Cached output keeps the options it was originally captured with. Output that is not fully recorded, as when
+     * the capture is not sampled, writes to a sink or keeps its output only on failure, is not cached.</p>
+     *
+     * @param key      the key identifying the callable and its inputs
+     * @param callable the callable to capture the output of
+     * @param options  the options for the capture
+     * @return the captured output
+     */
+    public CapturedOutput capture(final Object key, final ThrowingCallable callable, final CaptureOptions options) {
+        final Optional<CapturedOutput> cached = get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        final CapturedOutput captured = CaptureOutput.of(callable, options);
+        if (CachedCapture.isCacheable(captured)) {
+            put(key, CachedCapture.of(captured, options));
+        }
+        return captured;
+    }
+
+    /**
+     * The output cached for the key, if any.
+     *
+     * @param key the key
+     * @return an Optional containing the cached output, or empty
+     */
+    public Optional<CapturedOutput> get(final Object key) {
+        final CachedCapture entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return Optional.ofNullable(entry).map(CachedCapture::toCapturedOutput);
+    }
+
+    /**
+     * Remove the output cached for the key.
+     *
+     * @param key the key
+     */
+    public void invalidate(final Object key) {
+        synchronized (entries) {
+            final CachedCapture removed = entries.remove(key);
+            if (removed != null) {
+                bytes -= removed.size();
+            }
+        }
+    }
+
+    /**
+     * The number of captured outputs cached.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void put(final Object key, final CachedCapture entry) {
+        if (entry.size() > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            final CachedCapture replaced = entries.put(key, entry);
+            if (replaced != null) {
+                bytes -= replaced.size();
+            }
+            bytes += entry.size();
+            final Iterator<CachedCapture> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identifies the captures that output from the current thread belongs to, for captures filtered by thread.
+ *
+ * <p>When a capture is started with {@link CaptureOptions#withContextPropagation(boolean)}, its context is inherited
+ * by any thread created by the callable. Tasks passed to other threads, such as thread pools, can carry the context
+ * with them using the {@code wrap} methods. Output from any thread carrying the context is then captured.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * CaptureOutput.of(() -> {
+ *     ExecutorService executor = CaptureContext.wrap(Executors.newFixedThreadPool(4));
+ *     executor.submit(() -> System.out.println("captured"));
+ *     ...
+ * }, CaptureOptions.defaults().withContextPropagation(true));
+ * }</pre>
+ *
+ * <p>Without context propagation, or outside of any capture, the {@code wrap} methods have no effect.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class CaptureContext {
+
+    private static final CaptureContext ROOT = new CaptureContext(null);
+    private static final InheritableThreadLocal<CaptureContext> CURRENT = new InheritableThreadLocal<>();
+
+    private final CaptureContext parent;
+
+    private CaptureContext(final CaptureContext parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * The context of the current thread.
+     *
+     * @return the current context
+     */
+    public static CaptureContext current() {
+        final CaptureContext context = CURRENT.get();
+        if (context == null) {
+            return ROOT;
+        }
+        return context;
+    }
+
+    /**
+     * Create a new context, for a capture, within this context.
+     *
+     * @return a new context
+     */
+    CaptureContext child() {
+        return new CaptureContext(this);
+    }
+
+    /**
+     * Checks if this context is, or is within, the other context.
+     *
+     * @param other the other context
+     * @return true if output in this context belongs to the other context
+     */
+    boolean isWithin(final CaptureContext other) {
+        for (CaptureContext context = this; context != null; context = context.parent) {
+            if (context == other) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Make this the context of the current thread until the binding is closed.
+     *
+     * @return the binding, which restores the previous context when closed
+     */
+    Binding bind() {
+        final CaptureContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Wrap the callable to run within this context.
+     *
+     * @param callable the callable
+     * @return a callable that runs within this context
+     */
+    @SuppressWarnings("try")
+    ThrowingCallable bindTo(final ThrowingCallable callable) {
+        return () -> {
+            try (Binding binding = bind()) {
+                callable.call();
+            }
+        };
+    }
+
+    /**
+     * Wrap the runnable to run within the current context, wherever it is run.
+     *
+     * @param runnable the runnable
+     * @return a runnable that runs within the current context
+     */
+    @SuppressWarnings("try")
+    public static Runnable wrap(final Runnable runnable) {
+        final CaptureContext context = current();
+        return () -> {
+            try (Binding binding = context.bind()) {
+                runnable.run();
+            }
+        };
+    }
+
+    /**
+     * Wrap the callable to run within the current context, wherever it is run.
+     *
+     * @param callable the callable
+     * @param <T>      the type of the result
+     * @return a callable that runs within the current context
+     */
+    @SuppressWarnings("try")
+    public static <T> Callable<T> wrap(final Callable<T> callable) {
+        final CaptureContext context = current();
+        return () -> {
+            try (Binding binding = context.bind()) {
+                return callable.call();
+            }
+        };
+    }
+
+    /**
+     * Wrap the executor so that each task runs within the context of the thread that submitted it.
+     *
+     * @param executor the executor
+     * @return an executor that carries the context to its tasks
+     */
+    public static Executor wrap(final Executor executor) {
+        return command -> executor.execute(wrap(command));
+    }
+
+    /**
+     * Wrap the executor service so that each task runs within the context of the thread that submitted it.
+     *
+     * @param executorService the executor service
+     * @return an executor service that carries the context to its tasks
+     */
+    public static ExecutorService wrap(final ExecutorService executorService) {
+        return new ContextExecutorService(executorService);
+    }
+
+    /**
+     * Create a ForkJoinPool whose worker threads all run within the current context.
+     *
+     * <p>Use to capture the output of a parallel stream by running the terminal operation within the pool, e.g.
+     * {@code pool.submit(() -> list.parallelStream().forEach(System.out::println)).get()}.</p>
+     *
+     * @param parallelism the parallelism level of the pool
+     * @return a new ForkJoinPool
+     */
+    public static ForkJoinPool newForkJoinPool(final int parallelism) {
+        final CaptureContext context = current();
+        return new ForkJoinPool(parallelism, pool -> new ContextWorkerThread(pool, context), null, false);
+    }
+
+    /**
+     * Restores the previous context when closed.
+     */
+    @FunctionalInterface
+    interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * A ForkJoinPool worker thread that runs within a context.
+     */
+    private static final class ContextWorkerThread extends ForkJoinWorkerThread {
+
+        private final CaptureContext context;
+
+        ContextWorkerThread(final ForkJoinPool pool, final CaptureContext context) {
+            super(pool);
+            this.context = context;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            CURRENT.set(context);
+        }
+    }
+
+    /**
+     * An ExecutorService that runs each task within the context of the thread that submitted it.
+     */
+    private static final class ContextExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        ContextExecutorService(final ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            delegate.execute(wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+
+import java.nio.charset.Charset;
+
+/**
+ * Options for configuring how output is captured.
+ *
+ * <p>Start from {@link #defaults()} and replace only the options you need, e.g.</p>
+ *
+ * <pre>{@code CaptureOptions.defaults().withCharset(StandardCharsets.UTF_16)}</pre>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+@Getter
+@With
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CaptureOptions {
+
+    /**
+     * The charset used to decode the captured bytes into text.
+     */
+    private final Charset charset;
+
+    /**
+     * The line separator used to split the captured text into lines.
+     */
+    private final String lineSeparator;
+
+    /**
+     * Whether to record the time each line is completed, as reported by {@link CapturedOutputLine#timestamp()}.
+     */
+    private final boolean timestamps;
+
+    /**
+     * Whether output from threads carrying the capture's {@link CaptureContext} is captured by captures filtered by
+     * thread.
+     */
+    private final boolean contextPropagation;
+
+    /**
+     * Decides which captures record their output.
+     */
+    private final Sampler sampler;
+
+    /**
+     * Whether captured output is kept only when the callable throws an exception.
+     *
+     * <p>Output is buffered in pooled chunks, which are released when the callable succeeds, leaving the captured
+     * output empty. Lines are split from the retained output only when they are requested, with the lines written
+     * to {@code System.out} ahead of those written to {@code System.err}.</p>
+     */
+    private final boolean retainOnFailure;
+
+    /**
+     * When output is retained only on failure, the number of bytes at the end of each stream that are kept, or zero
+     * to keep all of it.
+     *
+     * <p>Older output is released while the callable runs, so a long running capture holds little more than the tail
+     * of each stream, and output requested before the callable completes may already have lost its start.</p>
+     */
+    private final int retainedTailBytes;
+
+    /**
+     * The pool that capture buffers are taken from, and returned to when the captured output is closed.
+     */
+    private final CapturePool capturePool;
+
+    /**
+     * Whether the initial size of capture buffers is learned from the output of earlier captures of the same
+     * callable, or the same key of a {@link KeyedCaptureOutput}.
+     */
+    private final boolean adaptiveCapacity;
+
+    /**
+     * How output copied by a capture is written to the original {@code System.out} and {@code System.err}.
+     */
+    private final CopyThrough copyThrough;
+
+    /**
+     * The sink that captured output is streamed to instead of being held in memory, or null, the default, to hold it
+     * in memory.
+     */
+    private final CaptureSink sink;
+
+    /**
+     * The size of the segments that captured output is compressed in, or zero, the default, to hold it uncompressed.
+     *
+     * <p>Full segments are compressed in the background, and lines are read from them when requested. Line timestamps
+     * are not recorded. Ignored when retaining output on failure or streaming to a sink.</p>
+     */
+    private final int compressedSegmentBytes;
+
+    /**
+     * Whether to store each distinct line only once, recording each captured line as a reference to its text.
+     *
+     * <p>Reduces the memory held for lines when output is repetitive. Line timestamps are not recorded. Ignored when
+     * retaining output on failure, streaming to a sink or compressing segments.</p>
+     */
+    private final boolean internLines;
+
+    /**
+     * The patterns that each completed line is matched against, or null, the default, to match none.
+     */
+    private final LineMatchers matchers;
+
+    /**
+     * The lines the callable is expected to write, or null, the default, to expect nothing.
+     *
+     * <p>Output is compared as each line completes, and the callable is interrupted on the first divergence. Applies
+     * to captures of a callable, not to a {@link CaptureScope}.</p>
+     */
+    private final LineExpectations expectations;
+
+    /**
+     * The bytes of the line separator as they appear within the captured output, without any byte order mark.
+     *
+     * @return the bytes
+     */
+    byte[] lineSeparatorBytes() {
+        return TextEncoding.withinStream(lineSeparator, charset);
+    }
+
+    /**
+     * The default options, using the platform default charset and the system line separator, without timestamps
+     * or context propagation, recording and retaining the output of every capture, without pooling or presizing
+     * buffers, copying output directly, holding captured output and each of its lines uncompressed in memory, and
+     * without matching or expecting lines.
+     *
+     * @return the default options
+     */
+    public static CaptureOptions defaults() {
+        return new CaptureOptions(Charset.defaultCharset(), System.lineSeparator(), false, false, Sampler.always(),
+                false, 0, CapturePool.none(), false,
+                CopyThrough.direct(), null, 0, false, null, null);
+    }
+}
@@ -21,6 +21,9 @@
 
 package net.kemitix.outputcapture;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Captures the output written to standard out and standard error.
  *
@@ -50,6 +53,8 @@ package net.kemitix.outputcapture;
  *   </tbody>
  * </table>
  *
+ * <p>Each method has an overload that accepts {@link CaptureOptions} to configure the capture.</p>
+ *
  * @author Paul Campbell (pcampbell@kemitix.net)
  */
 public interface CaptureOutput {
@@ -61,7 +66,18 @@ public interface CaptureOutput {
      * @return the instance CapturedOutput
      */
     static CapturedOutput of(ThrowingCallable callable) {
-        return Captors.syncRedirectThread().capture(callable);
+        return of(callable, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture the output of the callable.
+     *
+     * @param callable the callable to capture the output of
+     * @param options the options for the capture
+     * @return the instance CapturedOutput
+     */
+    static CapturedOutput of(final ThrowingCallable callable, final CaptureOptions options) {
+        return Captors.syncRedirectThread(options).capture(callable);
     }
 
     /**
@@ -71,7 +87,18 @@ public interface CaptureOutput {
      * @return the instance CapturedOutput
      */
     static CapturedOutput copyOf(ThrowingCallable callable) {
-        return Captors.syncCopy().capture(callable);
+        return copyOf(callable, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture the output of the callable and copies to normal output.
+     *
+     * @param callable the callable to capture the output of
+     * @param options the options for the capture
+     * @return the instance CapturedOutput
+     */
+    static CapturedOutput copyOf(final ThrowingCallable callable, final CaptureOptions options) {
+        return Captors.syncCopy(options).capture(callable);
     }
 
     /**
@@ -83,7 +110,20 @@ public interface CaptureOutput {
      * @return the instance CapturedOutput
      */
     static CapturedOutput ofAll(final ThrowingCallable callable) {
-        return Captors.syncRedirectAll().capture(callable);
+        return ofAll(callable, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture all output written while the callable is running.
+     *
+     * <p>This method will also capture any other output from other threads during the time the callable is running.</p>
+     *
+     * @param callable the callable to capture the output of
+     * @param options the options for the capture
+     * @return the instance CapturedOutput
+     */
+    static CapturedOutput ofAll(final ThrowingCallable callable, final CaptureOptions options) {
+        return Captors.syncRedirectAll(options).capture(callable);
     }
 
     /**
@@ -97,7 +137,26 @@ public interface CaptureOutput {
      * @return an instance of OngoingCapturedOutput
      */
     static OngoingCapturedOutput ofThread(final ThrowingCallable callable, final Long maxAwaitMilliseconds) {
-        return Captors.asyncRedirectThread(maxAwaitMilliseconds).capture(callable);
+        return ofThread(callable, maxAwaitMilliseconds, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture the output of a running thread asynchronously.
+     *
+     * <p>{@code callable} is started in a new thread.</p>
+     *
+     * @param callable the callable to capture the output of
+     * @param maxAwaitMilliseconds the maximum number of milliseconds to await for the capture to complete
+     * @param options              the options for the capture
+     *
+     * @return an instance of OngoingCapturedOutput
+     */
+    static OngoingCapturedOutput ofThread(
+            final ThrowingCallable callable,
+            final Long maxAwaitMilliseconds,
+            final CaptureOptions options
+    ) {
+        return Captors.asyncRedirectThread(maxAwaitMilliseconds, options).capture(callable);
     }
 
     /**
@@ -111,7 +170,26 @@ public interface CaptureOutput {
      * @return an instance of OngoingCapturedOutput
      */
     static OngoingCapturedOutput copyOfThread(final ThrowingCallable callable, final Long maxAwaitMilliseconds) {
-        return Captors.asyncCopyThread(maxAwaitMilliseconds).capture(callable);
+        return copyOfThread(callable, maxAwaitMilliseconds, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture the output of the callable running asynchronously and copies to the normal output.
+     *
+     * <p>{@code callable} is started in a new thread.</p>
+     *
+     * @param callable the callable to capture the output of
+     * @param maxAwaitMilliseconds the maximum number of milliseconds to await for the capture to complete
+     * @param options              the options for the capture
+     *
+     * @return an instance of OngoingCapturedOutput
+     */
+    static OngoingCapturedOutput copyOfThread(
+            final ThrowingCallable callable,
+            final Long maxAwaitMilliseconds,
+            final CaptureOptions options
+    ) {
+        return Captors.asyncCopyThread(maxAwaitMilliseconds, options).capture(callable);
     }
 
     /**
@@ -125,7 +203,26 @@ public interface CaptureOutput {
      * @return an instance of CapturedOutput
      */
     static OngoingCapturedOutput whileDoing(final ThrowingCallable callable, final Long maxAwaitMilliseconds) {
-        return Captors.asyncRedirectAll(maxAwaitMilliseconds).capture(callable);
+        return whileDoing(callable, maxAwaitMilliseconds, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture all output written while the callable is running asynchronously.
+     *
+     * <p>This method will also capture any other output from other threads during the time the callable is running.</p>
+     *
+     * @param callable the callable to capture output during
+     * @param maxAwaitMilliseconds the maximum number of milliseconds to await for the capture to complete
+     * @param options              the options for the capture
+     *
+     * @return an instance of CapturedOutput
+     */
+    static OngoingCapturedOutput whileDoing(
+            final ThrowingCallable callable,
+            final Long maxAwaitMilliseconds,
+            final CaptureOptions options
+    ) {
+        return Captors.asyncRedirectAll(maxAwaitMilliseconds, options).capture(callable);
     }
 
     /**
@@ -142,7 +239,67 @@ public interface CaptureOutput {
      * @return an instance of OngoingCapturedOutput
      */
     static OngoingCapturedOutput copyWhileDoing(final ThrowingCallable callable, final Long maxAwaitMilliseconds) {
-        return Captors.asyncCopyAll(maxAwaitMilliseconds).capture(callable);
+        return copyWhileDoing(callable, maxAwaitMilliseconds, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture all output written while the callable is running.
+     *
+     * <p>This method will also capture any other output from other threads during the time the callable is
+     * running.</p>
+     *
+     * <p>{@code callable} is started in a new thread.</p>
+     *
+     * @param callable the callable to capture output during
+     * @param maxAwaitMilliseconds the maximum number of milliseconds to await for the capture to complete
+     * @param options              the options for the capture
+     *
+     * @return an instance of OngoingCapturedOutput
+     */
+    static OngoingCapturedOutput copyWhileDoing(
+            final ThrowingCallable callable,
+            final Long maxAwaitMilliseconds,
+            final CaptureOptions options
+    ) {
+        return Captors.asyncCopyAll(maxAwaitMilliseconds, options).capture(callable);
+    }
+
+    /**
+     * Capture the output of each callable separately, running them in parallel.
+     *
+     * <p>Only the output written by each callable on the thread running it is captured. Returns once every
+     * callable has completed.</p>
+     *
+     * @param callables   the callables to capture the output of
+     * @param parallelism the number of callables to run at once
+     * @return the captured output of each callable, in the same order as the callables
+     */
+    static List<CapturedOutput> captureAll(
+            final Collection<? extends ThrowingCallable> callables,
+            final int parallelism
+    ) {
+        return captureAll(callables, parallelism, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture the output of each callable separately, running them in parallel.
+     *
+     * <p>Only the output written by each callable on the thread running it is captured. Returns once every
+     * callable has completed.</p>
+     *
+     * @param callables   the callables to capture the output of
+     * @param parallelism the number of callables to run at once
+     * @param options     the options for the captures
+     * @return the captured output of each callable, in the same order as the callables
+     * @throws OutputCaptureException for the first callable that threw an exception, holding that callable's captured
+     *                                output
+     */
+    static List<CapturedOutput> captureAll(
+            final Collection<? extends ThrowingCallable> callables,
+            final int parallelism,
+            final CaptureOptions options
+    ) {
+        return new BatchCapturer(parallelism, options).captureAll(callables);
     }
 
     /**
@@ -0,0 +1,170 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A pool of capture buffers that are reused once the {@link CapturedOutput} holding them is closed.
+ *
+ * <p>Buffers are binned by the size they had grown to, so a capture that is closed and repeated reuses buffers that
+ * are already large enough for its output.</p>
+ *
+ * <p>A captured output must not be used after it has been closed, as its buffers may already be capturing the output
+ * of another callable.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class CapturePool {
+
+    private static final int BINS = Integer.SIZE + 1;
+    private static final CapturePool NONE = new CapturePool(() -> null, 0);
+
+    private final Supplier<Bins> bins;
+    private final int maxPerBin;
+
+    private CapturePool(final Supplier<Bins> bins, final int maxPerBin) {
+        this.bins = bins;
+        this.maxPerBin = maxPerBin;
+    }
+
+    /**
+     * A pool that holds no buffers, so every capture allocates its own.
+     *
+     * @return the pool
+     */
+    public static CapturePool none() {
+        return NONE;
+    }
+
+    /**
+     * A pool shared by every thread.
+     *
+     * @param maxPerBin the maximum number of unused buffers of each size to hold
+     * @return the pool
+     */
+    public static CapturePool shared(final int maxPerBin) {
+        final Bins shared = new Bins();
+        return new CapturePool(() -> shared, maxPerBin);
+    }
+
+    /**
+     * A pool that holds separate buffers for each thread, which are reused by captures started on the thread that
+     * closed them.
+     *
+     * @param maxPerBin the maximum number of unused buffers of each size to hold for each thread
+     * @return the pool
+     */
+    public static CapturePool threadLocal(final int maxPerBin) {
+        final ThreadLocal<Bins> perThread = ThreadLocal.withInitial(Bins::new);
+        return new CapturePool(perThread::get, maxPerBin);
+    }
+
+    /**
+     * Take a store from the pool, or create one if none fit.
+     *
+     * @param options the capture options
+     * @param hint    the capacities wanted
+     * @return a store for recording output
+     */
+    CaptureStore acquire(final CaptureOptions options, final CapacityHint hint) {
+        if (maxPerBin > 0) {
+            final Bins available = bins.get();
+            for (int bin = binFor(hint.outBytes()); bin < BINS; bin++) {
+                final CaptureStore store = available.poll(bin, options);
+                if (store != null) {
+                    store.rearm(hint);
+                    return store;
+                }
+            }
+        }
+        return CaptureStore.recording(options, this, hint);
+    }
+
+    /**
+     * Return a store to the pool, once its captured output has been closed.
+     *
+     * @param store the store
+     */
+    void release(final CaptureStore store) {
+        if (maxPerBin > 0) {
+            store.reset();
+            bins.get().offer(bitLength(store.capacity()), store, maxPerBin);
+        }
+    }
+
+    private static int binFor(final int minCapacity) {
+        if (minCapacity <= 0) {
+            return 0;
+        }
+        return bitLength(minCapacity - 1) + 1;
+    }
+
+    private static int bitLength(final int value) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * The unused stores, binned by the bit length of their capacity.
+     */
+    private static final class Bins {
+
+        private final List<Deque<CaptureStore>> stores = new ArrayList<>(BINS);
+
+        Bins() {
+            for (int bin = 0; bin < BINS; bin++) {
+                stores.add(new ArrayDeque<>());
+            }
+        }
+
+        /**
+         * Remove the most recently released store in the bin that fits the options, leaving any others in place.
+         *
+         * @param bin     the bin
+         * @param options the capture options
+         * @return the store, or null if none fit
+         */
+        synchronized CaptureStore poll(final int bin, final CaptureOptions options) {
+            final Iterator<CaptureStore> candidates = stores.get(bin).iterator();
+            while (candidates.hasNext()) {
+                final CaptureStore store = candidates.next();
+                if (store.fits(options)) {
+                    candidates.remove();
+                    return store;
+                }
+            }
+            return null;
+        }
+
+        synchronized void offer(final int bin, final CaptureStore store, final int maxPerBin) {
+            final Deque<CaptureStore> deque = stores.get(bin);
+            if (deque.size() < maxPerBin) {
+                deque.addFirst(store);
+            }
+        }
+    }
+}
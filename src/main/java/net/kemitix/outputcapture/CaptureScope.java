@@ -0,0 +1,181 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.function.Function;
+
+/**
+ * Captures the output of the current thread from when it is opened until it is closed, without wrapping the code in
+ * a {@link ThrowingCallable}.
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * try (CaptureScope scope = CaptureScope.open()) {
+ *     System.out.println("captured");
+ *     scope.suspend();
+ *     System.out.println("not captured");
+ *     scope.resume();
+ *     assertThat(scope.getCapturedOutput().getStdOut()).containsExactly("captured");
+ * }
+ * }</pre>
+ *
+ * <p>A scope must be suspended, resumed and closed on the thread that opened it. Any exception thrown within the
+ * scope passes through unchanged.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class CaptureScope extends AbstractCaptureOutput implements AutoCloseable {
+
+    private final DefaultCapturedOutput capturedOutput;
+    private final CaptureContext.Binding binding;
+    private boolean suspended;
+    private boolean failed;
+    private boolean closed;
+
+    private CaptureScope(
+            final Function<RouterParameters, Router> routerFactory,
+            final CaptureOptions options,
+            final Object key
+    ) {
+        final CaptureContext captureContext = CaptureContext.current().child();
+        final CaptureStore store = CaptureStore.create(options.getSampler().sample(key), options, key);
+        store.listen(MatchingLines.of(options));
+        final Router router = routerFactory.apply(
+                RouterParameters.create(store.getCapturedLines(), captureContext, options));
+        capturedOutput = new DefaultCapturedOutput(store, router, options);
+        binding = options.isContextPropagation() ? captureContext.bind() : null;
+        enable(capturedOutput);
+    }
+
+    /**
+     * Start capturing the output of the current thread, keeping it from the original output.
+     *
+     * @return the scope
+     */
+    public static CaptureScope open() {
+        return open(CaptureOptions.defaults());
+    }
+
+    /**
+     * Start capturing the output of the current thread, keeping it from the original output.
+     *
+     * @param options the capture options
+     * @return the scope
+     */
+    public static CaptureScope open(final CaptureOptions options) {
+        return open(options, CaptureScope.class);
+    }
+
+    /**
+     * Start capturing the output of the current thread, keeping it from the original output.
+     *
+     * @param options the capture options
+     * @param key     the key used to sample the scope and learn its capacity
+     * @return the scope
+     */
+    public static CaptureScope open(final CaptureOptions options, final Object key) {
+        return new CaptureScope(ThreadFilteredRedirectRouter::new, options, key);
+    }
+
+    /**
+     * Start capturing the output of the current thread, while still writing it to the original output.
+     *
+     * @param options the capture options
+     * @return the scope
+     */
+    public static CaptureScope openCopy(final CaptureOptions options) {
+        return new CaptureScope(ThreadFilteredCopyRouter::new, options, CaptureScope.class);
+    }
+
+    /**
+     * The output captured so far.
+     *
+     * @return the captured output
+     */
+    public CapturedOutput getCapturedOutput() {
+        return capturedOutput;
+    }
+
+    /**
+     * Stop capturing output until the scope is resumed.
+     *
+     * <p>Does nothing if the scope is already suspended or closed.</p>
+     */
+    public void suspend() {
+        if (!suspended && !closed) {
+            suspended = true;
+            disable(capturedOutput);
+        }
+    }
+
+    /**
+     * Start capturing output again after the scope was suspended.
+     *
+     * <p>Does nothing if the scope is not suspended or is closed. The scope takes precedence over any captures
+     * started while it was suspended.</p>
+     */
+    public void resume() {
+        if (suspended && !closed) {
+            suspended = false;
+            enable(capturedOutput);
+        }
+    }
+
+    /**
+     * Whether the scope is suspended.
+     *
+     * @return true if output is not being captured until the scope is resumed
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Mark the scope as failed, so that output retained only on failure is kept when the scope is closed.
+     *
+     * @see CaptureOptions#isRetainOnFailure()
+     */
+    public void markFailed() {
+        failed = true;
+    }
+
+    /**
+     * Stop capturing output. The captured output remains available.
+     *
+     * <p>Does nothing if the scope is already closed.</p>
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!suspended) {
+            disable(capturedOutput);
+        }
+        if (binding != null) {
+            binding.close();
+        }
+        capturedOutput.complete(failed);
+    }
+}
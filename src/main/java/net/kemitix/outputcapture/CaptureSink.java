@@ -0,0 +1,146 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * A destination that captured output is streamed to, instead of being held in memory.
+ *
+ * <p>Captured bytes are pushed to the sink in chunks as they are written, and any partial chunk is pushed and the sink
+ * flushed when the capture completes. Captures using a sink hold no output in memory, so the {@link CapturedOutput}
+ * they return is empty. The sink is not closed by the capture.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * try (CaptureSink sink = CaptureSink.rotating(logs, "server", 100_000_000, Duration.ofHours(1))) {
+ *     CaptureOutput.whileDoing(server::run, timeout, CaptureOptions.defaults().withSink(sink));
+ * }
+ * }</pre>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public interface CaptureSink extends AutoCloseable {
+
+    /**
+     * Receive a chunk of captured output.
+     *
+     * <p>Sinks may be written to from several threads at once.</p>
+     *
+     * @param source the stream the output was written to
+     * @param bytes  the bytes, from the buffer's position to its limit, which are only valid during the call
+     * @throws IOException if the bytes can not be written
+     */
+    void write(Source source, ByteBuffer bytes) throws IOException;
+
+    /**
+     * Write any buffered output.
+     *
+     * @throws IOException if the output can not be written
+     */
+    default void flush() throws IOException {
+        // nothing buffered
+    }
+
+    /**
+     * Write any buffered output and release the sink's resources.
+     *
+     * @throws IOException if the output can not be written
+     */
+    @Override
+    default void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * A sink that appends both streams to a file, buffering writes into large blocks.
+     *
+     * @param file the file
+     * @return the sink
+     * @throws IOException if the file can not be opened
+     */
+    static CaptureSink fileChannel(final Path file) throws IOException {
+        return new ChannelSink(
+                FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND),
+                ChannelSink.FILE_BUFFER_BYTES);
+    }
+
+    /**
+     * A sink that writes both streams to numbered files in a directory, starting a new file when the current one
+     * reaches a size or an age.
+     *
+     * @param directory the directory
+     * @param prefix    the start of each file name, which is followed by a dot and the file number
+     * @param maxBytes  the size at which a new file is started
+     * @param maxAge    the age at which a new file is started
+     * @return the sink
+     */
+    static CaptureSink rotating(final Path directory, final String prefix, final long maxBytes,
+                                final Duration maxAge) {
+        return new RotatingFileSink(directory, prefix, maxBytes, maxAge.toNanos(), System::nanoTime);
+    }
+
+    /**
+     * A sink that writes both streams to a channel as they arrive.
+     *
+     * @param channel the channel
+     * @return the sink
+     */
+    static CaptureSink channel(final WritableByteChannel channel) {
+        return new ChannelSink(channel, 0);
+    }
+
+    /**
+     * A sink that sends each stream to its own sink.
+     *
+     * @param out the sink for standard out
+     * @param err the sink for standard error
+     * @return the sink
+     */
+    static CaptureSink split(final CaptureSink out, final CaptureSink err) {
+        return new SplitSink(out, err);
+    }
+
+    /**
+     * The stream that output was written to.
+     */
+    enum Source {
+
+        /**
+         * Standard out.
+         */
+        OUT,
+
+        /**
+         * Standard error.
+         */
+        ERR
+    }
+}
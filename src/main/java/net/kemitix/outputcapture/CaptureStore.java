@@ -0,0 +1,222 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.AllArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Where the output of a single capture is stored.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+class CaptureStore {
+
+    @Getter
+    private final ByteArrayOutputStream out;
+    @Getter
+    private final ByteArrayOutputStream err;
+    @Getter
+    private final CapturedLines capturedLines;
+    private final CaptureOptions options;
+    private final CapturePool pool;
+    private CapacityHint hint;
+
+    /**
+     * Create the store for a capture.
+     *
+     * @param sampled whether the capture is recording its output
+     * @param options the capture options
+     * @param key     the key to learn the capacity of the buffers under, when adaptive capacity is enabled
+     * @return the store
+     */
+    static CaptureStore create(final boolean sampled, final CaptureOptions options, final Object key) {
+        if (!sampled) {
+            return unpooled(
+                    new DiscardingByteArrayOutputStream(),
+                    new DiscardingByteArrayOutputStream(),
+                    new DiscardedLines(options));
+        }
+        if (options.getSink() != null) {
+            return unpooled(
+                    new SinkOutputStream(options.getSink(), CaptureSink.Source.OUT),
+                    new SinkOutputStream(options.getSink(), CaptureSink.Source.ERR),
+                    new DiscardedLines(options));
+        }
+        if (options.isRetainOnFailure()) {
+            final ByteArrayOutputStream out =
+                    new ChunkedByteArrayOutputStream(ChunkPool.shared(), options.getRetainedTailBytes());
+            final ByteArrayOutputStream err =
+                    new ChunkedByteArrayOutputStream(ChunkPool.shared(), options.getRetainedTailBytes());
+            return unpooled(out, err, new DerivedLines(out, err, options));
+        }
+        if (options.getCompressedSegmentBytes() > 0) {
+            final CompressedByteArrayOutputStream out =
+                    new CompressedByteArrayOutputStream(options.getCompressedSegmentBytes());
+            final CompressedByteArrayOutputStream err =
+                    new CompressedByteArrayOutputStream(options.getCompressedSegmentBytes());
+            return unpooled(out, err, new IndexedLines(out, err, options));
+        }
+        if (options.isInternLines()) {
+            return unpooled(new ByteArrayOutputStream(), new ByteArrayOutputStream(), new InternedLines(options));
+        }
+        if (options.isAdaptiveCapacity()) {
+            return options.getCapturePool().acquire(options, CapacityHint.forKey(key));
+        }
+        return options.getCapturePool().acquire(options, CapacityHint.NONE);
+    }
+
+    /**
+     * Create a store that will be returned to a pool when released.
+     *
+     * @param options the capture options
+     * @param pool    the pool to return the store to
+     * @param hint    the initial capacities of the buffers
+     * @return the store
+     */
+    static CaptureStore recording(final CaptureOptions options, final CapturePool pool, final CapacityHint hint) {
+        return new CaptureStore(
+                new SizedByteArrayOutputStream(hint.outBytes()),
+                new SizedByteArrayOutputStream(hint.errBytes()),
+                new DefaultCapturedLines(options, hint.lines()),
+                options,
+                pool,
+                hint);
+    }
+
+    /**
+     * Create a store around existing buffers, which will not be pooled.
+     *
+     * @param out           the captured standard output
+     * @param err           the captured standard error
+     * @param capturedLines the captured lines
+     * @return the store
+     */
+    static CaptureStore unpooled(
+            final ByteArrayOutputStream out,
+            final ByteArrayOutputStream err,
+            final CapturedLines capturedLines
+    ) {
+        return new CaptureStore(out, err, capturedLines, null, CapturePool.none(), CapacityHint.NONE);
+    }
+
+    /**
+     * Tell the listener of each line of a store created by {@link #create(boolean, CaptureOptions, Object)} as it is
+     * completed.
+     *
+     * @param listener the listener
+     */
+    void listen(final LineListener listener) {
+        ((ListenableLines) capturedLines).setListener(listener);
+    }
+
+    /**
+     * Return the store to its pool, if it has one.
+     */
+    void release() {
+        pool.release(this);
+    }
+
+    /**
+     * Push any output held for a sink to the sink.
+     *
+     * @throws OutputCaptureException if writing to the sink has failed
+     */
+    void flushSink() {
+        if (out instanceof SinkOutputStream) {
+            ((SinkOutputStream) out).flush();
+            ((SinkOutputStream) err).flush();
+        }
+    }
+
+    /**
+     * Fix the lines of a store whose lines are derived from its output, once the output that is retained is known.
+     */
+    void completeLines() {
+        if (capturedLines instanceof DerivedLines) {
+            ((DerivedLines) capturedLines).complete();
+        }
+    }
+
+    /**
+     * Whether the store holds the output written to it, rather than discarding it or passing it on to a sink.
+     *
+     * @return true if the output is held
+     */
+    boolean isHolding() {
+        return !(out instanceof DiscardingByteArrayOutputStream || out instanceof SinkOutputStream);
+    }
+
+    /**
+     * Learn the capacity for later captures with the same key from the output held by the store.
+     */
+    void recordCapacity() {
+        if (hint != CapacityHint.NONE) {
+            hint.record(out.size(), err.size(), ((DefaultCapturedLines) capturedLines).size());
+        }
+    }
+
+    /**
+     * Whether the store's lines were created with compatible options.
+     *
+     * @param required the options the capture requires
+     * @return true if the store can be used
+     */
+    boolean fits(final CaptureOptions required) {
+        return options.getCharset().equals(required.getCharset())
+                && options.getLineSeparator().equals(required.getLineSeparator())
+                && options.isTimestamps() == required.isTimestamps();
+    }
+
+    /**
+     * The capacity of the output buffer of a store created by
+     * {@link #recording(CaptureOptions, CapturePool, CapacityHint)}.
+     *
+     * @return the capacity in bytes
+     */
+    int capacity() {
+        return ((SizedByteArrayOutputStream) out).capacity();
+    }
+
+    /**
+     * Reuse a store taken from its pool for a capture, learning its capacity under the capture's hint rather than that
+     * of the capture it was created for.
+     *
+     * @param capacityHint the hint of the capture reusing the store
+     */
+    void rearm(final CapacityHint capacityHint) {
+        hint = capacityHint;
+    }
+
+    /**
+     * Empty a store created by {@link #recording(CaptureOptions, CapturePool, CapacityHint)}, keeping its buffers.
+     */
+    void reset() {
+        out.reset();
+        err.reset();
+        ((DefaultCapturedLines) capturedLines).reset();
+    }
+}
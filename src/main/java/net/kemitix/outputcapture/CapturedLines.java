@@ -21,6 +21,9 @@
 
 package net.kemitix.outputcapture;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -36,4 +39,14 @@ public interface CapturedLines extends WritableChannels {
      * @return a Stream of CapturedOutputLines
      */
     Stream<CapturedOutputLine> stream();
+
+    /**
+     * Count how many times each distinct line was captured.
+     *
+     * @return the number of times each line was captured, keyed by its text in the order first captured
+     */
+    default Map<String, Long> lineCounts() {
+        return stream().collect(Collectors.groupingBy(CapturedOutputLine::asString, LinkedHashMap::new,
+                Collectors.counting()));
+    }
 }
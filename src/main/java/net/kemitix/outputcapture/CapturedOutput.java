@@ -22,6 +22,10 @@
 package net.kemitix.outputcapture;
 
 import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -29,7 +33,7 @@ import java.util.stream.Stream;
  *
  * @author Paul Campbell (pcampbell@kemitix.net)
  */
-public interface CapturedOutput {
+public interface CapturedOutput extends AutoCloseable {
 
     /**
      * Get a stream of the captured standard output so far.
@@ -66,4 +70,47 @@ public interface CapturedOutput {
      */
     Stream<CapturedOutputLine> stream();
 
+    /**
+     * Count how many times each distinct line was captured, from either stream.
+     *
+     * <p>This is cheapest when the capture was started with {@link CaptureOptions#withInternLines(boolean)}.</p>
+     *
+     * @return the number of times each line was captured, keyed by its text in the order first captured
+     */
+    default Map<String, Long> lineCounts() {
+        return stream().collect(Collectors.groupingBy(CapturedOutputLine::asString, LinkedHashMap::new,
+                Collectors.counting()));
+    }
+
+    /**
+     * Fetch the captured lines from standard out and standard error merged in the order they were completed.
+     *
+     * @return a Stream of CapturedOutputLines in sequence order
+     */
+    default Stream<CapturedOutputLine> timeline() {
+        final CapturedOutputLine[] lines = stream().toArray(CapturedOutputLine[]::new);
+        return Timeline.merge(Arrays.asList(
+                Arrays.stream(lines).filter(CapturedOutputLine::isOut).toArray(CapturedOutputLine[]::new),
+                Arrays.stream(lines).filter(CapturedOutputLine::isErr).toArray(CapturedOutputLine[]::new)));
+    }
+
+    /**
+     * Merge the captured lines from several captures, such as nested captures, in the order they were completed.
+     *
+     * @param captures the captured outputs
+     * @return a Stream of CapturedOutputLines in sequence order
+     */
+    static Stream<CapturedOutputLine> timeline(final CapturedOutput... captures) {
+        return Timeline.merge(captures);
+    }
+
+    /**
+     * Return the capture's buffers to the {@link CapturePool} they were taken from, if any.
+     *
+     * <p>The captured output must not be used after it has been closed.</p>
+     */
+    @Override
+    default void close() {
+        // nothing to release by default
+    }
 }
@@ -23,6 +23,7 @@ package net.kemitix.outputcapture;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -39,23 +40,7 @@ public interface CapturedOutputLine {
      * @return a CapturedOutputLine where isOut() is true
      */
     static CapturedOutputLine out(final List<Byte> bytes) {
-        final String string = byteListToString(bytes);
-        return new CapturedOutputLine() {
-            @Override
-            public boolean isOut() {
-                return true;
-            }
-
-            @Override
-            public boolean isErr() {
-                return false;
-            }
-
-            @Override
-            public String asString() {
-                return string;
-            }
-        };
+        return new DefaultCapturedOutputLine(true, byteListToString(bytes), LineSequence.next());
     }
 
     /**
@@ -65,23 +50,7 @@ public interface CapturedOutputLine {
      * @return a CapturedOutputLine where isErr() is true
      */
     static CapturedOutputLine err(final List<Byte> bytes) {
-        final String string = byteListToString(bytes);
-        return new CapturedOutputLine() {
-            @Override
-            public boolean isOut() {
-                return false;
-            }
-
-            @Override
-            public boolean isErr() {
-                return true;
-            }
-
-            @Override
-            public String asString() {
-                return string;
-            }
-        };
+        return new DefaultCapturedOutputLine(false, byteListToString(bytes), LineSequence.next());
     }
 
     /**
@@ -118,4 +87,27 @@ public interface CapturedOutputLine {
      */
     String asString();
 
+    /**
+     * Returns the sequence number of the line.
+     *
+     * <p>Sequence numbers are shared across all captures and increase in the order that lines are completed, across
+     * both standard out and standard error. Implementations that do not record a sequence number return zero.</p>
+     *
+     * @return the sequence number
+     */
+    default long sequence() {
+        return 0L;
+    }
+
+    /**
+     * Returns the time the line was completed, in nanoseconds since the capture started.
+     *
+     * <p>Only available when the capture was started with {@link CaptureOptions#withTimestamps(boolean)}.</p>
+     *
+     * @return an Optional containing the offset in nanoseconds, or empty if timestamps were not recorded
+     */
+    default OptionalLong timestamp() {
+        return OptionalLong.empty();
+    }
+
 }
@@ -38,4 +38,14 @@ interface CapturingRouter extends Router {
         getCapturedLines().writeErr(aByte);
     }
 
+    @Override
+    default void writeOut(final byte[] bytes, final int offset, final int length) {
+        getCapturedLines().writeOut(bytes, offset, length);
+    }
+
+    @Override
+    default void writeErr(final byte[] bytes, final int offset, final int length) {
+        getCapturedLines().writeErr(bytes, offset, length);
+    }
+
 }
@@ -0,0 +1,97 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes captured output to a channel, optionally gathering it into a buffer first.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class ChannelSink implements CaptureSink {
+
+    /**
+     * The size of the buffer used when writing to a file.
+     */
+    static final int FILE_BUFFER_BYTES = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor.
+     *
+     * @param channel     the channel to write to
+     * @param bufferBytes the size of the buffer, or zero to write each chunk as it arrives
+     */
+    ChannelSink(final WritableByteChannel channel, final int bufferBytes) {
+        this.channel = channel;
+        this.buffer = bufferBytes > 0 ? ByteBuffer.allocateDirect(bufferBytes) : null;
+    }
+
+    @Override
+    public synchronized void write(final Source source, final ByteBuffer bytes) throws IOException {
+        if (buffer == null) {
+            writeFully(bytes);
+            return;
+        }
+        if (bytes.remaining() > buffer.remaining()) {
+            flushBuffer();
+        }
+        if (bytes.remaining() > buffer.capacity()) {
+            writeFully(bytes);
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (buffer != null) {
+            flushBuffer();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(final ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
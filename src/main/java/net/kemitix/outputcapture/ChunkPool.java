@@ -0,0 +1,91 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of fixed size byte arrays that are reused between captures.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class ChunkPool {
+
+    /**
+     * The size of each chunk.
+     */
+    static final int CHUNK_SIZE = 4096;
+
+    private static final int MAX_POOLED_CHUNKS = 256;
+    private static final ChunkPool SHARED = new ChunkPool(MAX_POOLED_CHUNKS);
+
+    private final Queue<byte[]> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final int maxPooled;
+
+    /**
+     * Constructor.
+     *
+     * @param maxPooled the maximum number of unused chunks to hold
+     */
+    ChunkPool(final int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * The pool shared by all captures.
+     *
+     * @return the shared pool
+     */
+    static ChunkPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Take a chunk from the pool, or create one if the pool is empty.
+     *
+     * @return a chunk, which may contain data from a previous use
+     */
+    byte[] acquire() {
+        final byte[] chunk = free.poll();
+        if (chunk == null) {
+            return new byte[CHUNK_SIZE];
+        }
+        pooled.decrementAndGet();
+        return chunk;
+    }
+
+    /**
+     * Return a chunk to the pool, or leave it for the garbage collector if the pool is full.
+     *
+     * @param chunk the chunk
+     */
+    void release(final byte[] chunk) {
+        if (pooled.incrementAndGet() <= maxPooled) {
+            free.offer(chunk);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A ByteArrayOutputStream that holds its contents in chunks taken from a {@link ChunkPool}, rather than in a single
+ * array that is copied each time it grows.
+ *
+ * <p>When a tail is given, chunks holding only bytes older than the tail are returned to the pool as the stream is
+ * written, so the stream holds no more than the tail and one further chunk. The stream then reads as the bytes it
+ * still holds.</p>
+ *
+ * <p>Resetting the stream returns its chunks to the pool.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class ChunkedByteArrayOutputStream extends ByteArrayOutputStream {
+
+    private static final int CHUNK_SIZE = ChunkPool.CHUNK_SIZE;
+
+    private final ChunkPool pool;
+    private final int tailBytes;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int head;
+
+    /**
+     * Constructor.
+     *
+     * @param pool the pool to take chunks from
+     */
+    ChunkedByteArrayOutputStream(final ChunkPool pool) {
+        this(pool, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pool      the pool to take chunks from
+     * @param tailBytes the number of most recent bytes that must be kept, or zero to keep all of them
+     */
+    ChunkedByteArrayOutputStream(final ChunkPool pool, final int tailBytes) {
+        super(0);
+        this.pool = pool;
+        this.tailBytes = tailBytes;
+    }
+
+    @Override
+    public synchronized void write(final int b) {
+        final int position = head + count;
+        final int offset = position % CHUNK_SIZE;
+        if (offset == 0 && position / CHUNK_SIZE == chunks.size()) {
+            chunks.add(pool.acquire());
+        }
+        chunks.get(position / CHUNK_SIZE)[offset] = (byte) b;
+        count++;
+        dropBeforeTail();
+    }
+
+    @Override
+    public synchronized void write(final byte[] b, final int off, final int len) {
+        int written = 0;
+        while (written < len) {
+            final int position = head + count;
+            final int offset = position % CHUNK_SIZE;
+            if (offset == 0 && position / CHUNK_SIZE == chunks.size()) {
+                chunks.add(pool.acquire());
+            }
+            final int length = Math.min(len - written, CHUNK_SIZE - offset);
+            System.arraycopy(b, off + written, chunks.get(position / CHUNK_SIZE), offset, length);
+            written += length;
+            count += length;
+            dropBeforeTail();
+        }
+    }
+
+    private void dropBeforeTail() {
+        while (tailBytes > 0 && chunks.size() > 1 && count - (CHUNK_SIZE - head) >= tailBytes) {
+            pool.release(chunks.remove(0));
+            count -= CHUNK_SIZE - head;
+            head = 0;
+        }
+    }
+
+    @Override
+    public synchronized void writeTo(final OutputStream out) throws IOException {
+        int remaining = count;
+        int offset = head;
+        for (final byte[] chunk : chunks) {
+            if (remaining <= 0) {
+                break;
+            }
+            final int length = Math.min(remaining, CHUNK_SIZE - offset);
+            out.write(chunk, offset, length);
+            remaining -= length;
+            offset = 0;
+        }
+    }
+
+    @Override
+    public synchronized void reset() {
+        chunks.forEach(pool::release);
+        chunks.clear();
+        head = 0;
+        count = 0;
+    }
+
+    @Override
+    public synchronized byte[] toByteArray() {
+        final byte[] result = new byte[count];
+        int copied = 0;
+        int offset = head;
+        for (final byte[] chunk : chunks) {
+            final int length = Math.min(count - copied, CHUNK_SIZE - offset);
+            if (length <= 0) {
+                break;
+            }
+            System.arraycopy(chunk, offset, result, copied, length);
+            copied += length;
+            offset = 0;
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new String(toByteArray(), Charset.defaultCharset());
+    }
+
+    @Override
+    public synchronized String toString(final String charsetName) throws UnsupportedEncodingException {
+        return new String(toByteArray(), charsetName);
+    }
+
+    /**
+     * Decode the contents using the charset.
+     *
+     * <p>This overrides {@code ByteArrayOutputStream.toString(Charset)} where it exists, from Java 10, which would
+     * otherwise decode the empty inherited buffer.</p>
+     *
+     * @param charset the charset
+     * @return the decoded contents
+     */
+    public synchronized String toString(final Charset charset) {
+        return new String(toByteArray(), charset);
+    }
+
+    @Override
+    @Deprecated
+    @SuppressWarnings("deprecation")
+    public synchronized String toString(final int hibyte) {
+        return new String(toByteArray(), hibyte);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A ByteArrayOutputStream that holds its contents in fixed-size segments, compressing each segment in the background
+ * once it is full.
+ *
+ * <p>Only the segment being written to is held uncompressed, and reads decompress only the segments they cover. A
+ * full segment remains readable uncompressed until its compression completes.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class CompressedByteArrayOutputStream extends ByteArrayOutputStream {
+
+    private final int segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private byte[] current;
+    private int cachedIndex = -1;
+    private byte[] cached;
+
+    /**
+     * Constructor.
+     *
+     * @param segmentBytes the size of each segment
+     */
+    CompressedByteArrayOutputStream(final int segmentBytes) {
+        super(0);
+        this.segmentBytes = segmentBytes;
+        this.current = new byte[segmentBytes];
+    }
+
+    @Override
+    public synchronized void write(final int b) {
+        current[count % segmentBytes] = (byte) b;
+        count++;
+        completeSegment();
+    }
+
+    @Override
+    public synchronized void write(final byte[] b, final int off, final int len) {
+        int written = 0;
+        while (written < len) {
+            final int offset = count % segmentBytes;
+            final int length = Math.min(len - written, segmentBytes - offset);
+            System.arraycopy(b, off + written, current, offset, length);
+            written += length;
+            count += length;
+            completeSegment();
+        }
+    }
+
+    private void completeSegment() {
+        if (count % segmentBytes == 0) {
+            final Segment segment = new Segment(current);
+            segments.add(segment);
+            Compressor.EXECUTOR.execute(segment::compress);
+            current = new byte[segmentBytes];
+        }
+    }
+
+    /**
+     * Copy a range of the contents, decompressing only the segments it covers.
+     *
+     * @param position the offset within the stream of the first byte to copy
+     * @param target   the array to copy into
+     * @param offset   the offset within the target of the first byte
+     * @param length   the number of bytes to copy
+     */
+    synchronized void read(final int position, final byte[] target, final int offset, final int length) {
+        if (position < 0 || length < 0 || position + length > count) {
+            throw new IndexOutOfBoundsException();
+        }
+        int copied = 0;
+        while (copied < length) {
+            final int index = (position + copied) / segmentBytes;
+            final int from = (position + copied) % segmentBytes;
+            final int chunk = Math.min(length - copied, segmentBytes - from);
+            System.arraycopy(segment(index), from, target, offset + copied, chunk);
+            copied += chunk;
+        }
+    }
+
+    private byte[] segment(final int index) {
+        if (index == segments.size()) {
+            return current;
+        }
+        if (index != cachedIndex) {
+            cached = segments.get(index).bytes(segmentBytes);
+            cachedIndex = index;
+        }
+        return cached;
+    }
+
+    /**
+     * The number of bytes held, counting full segments at their compressed size once compressed.
+     *
+     * @return the number of bytes
+     */
+    synchronized long storedBytes() {
+        long stored = segmentBytes;
+        for (final Segment segment : segments) {
+            stored += segment.storedBytes();
+        }
+        return stored;
+    }
+
+    @Override
+    public synchronized void writeTo(final OutputStream out) throws IOException {
+        for (int i = 0; i < segments.size(); i++) {
+            out.write(segment(i), 0, segmentBytes);
+        }
+        out.write(current, 0, count % segmentBytes);
+    }
+
+    @Override
+    public synchronized void reset() {
+        segments.clear();
+        cachedIndex = -1;
+        cached = null;
+        count = 0;
+    }
+
+    @Override
+    public synchronized byte[] toByteArray() {
+        final byte[] result = new byte[count];
+        read(0, result, 0, count);
+        return result;
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new String(toByteArray(), Charset.defaultCharset());
+    }
+
+    @Override
+    public synchronized String toString(final String charsetName) throws UnsupportedEncodingException {
+        return new String(toByteArray(), charsetName);
+    }
+
+    /**
+     * Decode the contents using the charset.
+     *
+     * <p>This overrides {@code ByteArrayOutputStream.toString(Charset)} where it exists, from Java 10, which would
+     * otherwise decode the empty inherited buffer.</p>
+     *
+     * @param charset the charset
+     * @return the decoded contents
+     */
+    public synchronized String toString(final Charset charset) {
+        return new String(toByteArray(), charset);
+    }
+
+    @Override
+    @Deprecated
+    @SuppressWarnings("deprecation")
+    public synchronized String toString(final int hibyte) {
+        return new String(toByteArray(), hibyte);
+    }
+
+    /**
+     * A full segment, held uncompressed until it has been compressed.
+     */
+    private static final class Segment {
+
+        private static final int BUFFER_BYTES = 4096;
+
+        private volatile byte[] raw;
+        private volatile byte[] compressed;
+
+        Segment(final byte[] raw) {
+            this.raw = raw;
+        }
+
+        void compress() {
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                final ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length / 2);
+                final byte[] buffer = new byte[BUFFER_BYTES];
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+                compressed = output.toByteArray();
+                raw = null;
+            } finally {
+                deflater.end();
+            }
+        }
+
+        byte[] bytes(final int length) {
+            final byte[] uncompressed = raw;
+            if (uncompressed != null) {
+                return uncompressed;
+            }
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                final byte[] result = new byte[length];
+                int inflated = 0;
+                while (inflated < length && !inflater.finished()) {
+                    inflated += inflater.inflate(result, inflated, length - inflated);
+                }
+                return result;
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt captured output segment", e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        long storedBytes() {
+            final byte[] uncompressed = raw;
+            return uncompressed != null ? uncompressed.length : compressed.length;
+        }
+    }
+
+    /**
+     * The single background thread that compresses full segments.
+     */
+    private static final class Compressor {
+
+        private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "output-capture-compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
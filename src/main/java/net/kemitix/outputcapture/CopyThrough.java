@@ -0,0 +1,206 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.nio.charset.Charset;
+import java.util.function.UnaryOperator;
+
+/**
+ * How output copied by a capture is written to the original {@code System.out} and {@code System.err}.
+ *
+ * <p>By default each byte is written directly, on the thread writing the output. An asynchronous copy-through queues
+ * the bytes instead, and a background thread for each stream writes them in large blocks, so a slow console does not
+ * slow down the code being captured.</p>
+ *
+ * <p>Passthrough stages can be added to limit what reaches the original streams, while the capture still records
+ * all of the output. Stages see the output in the order they are added.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * try (CopyThrough copyThrough = CopyThrough.async(65536, CopyThrough.Overflow.BLOCK)
+ *         .withDeduplication()
+ *         .withThrottle(100_000)) {
+ *     CaptureOutput.copyOf(callable, CaptureOptions.defaults().withCopyThrough(copyThrough));
+ * }
+ * }</pre>
+ *
+ * <p>Held bytes are flushed when each capture using the copy-through ends, and when it is flushed or closed. A
+ * copy-through other than {@link #direct()} should be created while no captures are active, as it copies to
+ * {@code System.out} and {@code System.err} as they are when it is created.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class CopyThrough implements AutoCloseable {
+
+    private static final CopyThrough DIRECT = new CopyThrough(null, null, UnaryOperator.identity());
+
+    private final ByteSink terminalOut;
+    private final ByteSink terminalErr;
+    private final UnaryOperator<ByteSink> stages;
+    private final ByteSink out;
+    private final ByteSink err;
+
+    private CopyThrough(
+            final ByteSink terminalOut,
+            final ByteSink terminalErr,
+            final UnaryOperator<ByteSink> stages
+    ) {
+        this.terminalOut = terminalOut;
+        this.terminalErr = terminalErr;
+        this.stages = stages;
+        this.out = terminalOut == null ? null : stages.apply(terminalOut);
+        this.err = terminalErr == null ? null : stages.apply(terminalErr);
+    }
+
+    /**
+     * Write copied output directly to the original streams.
+     *
+     * @return the copy-through
+     */
+    public static CopyThrough direct() {
+        return DIRECT;
+    }
+
+    /**
+     * Queue copied output to be written to the original streams by background threads.
+     *
+     * @param capacityBytes the number of bytes that can be queued for each stream
+     * @param overflow      what to do when a queue is full
+     * @return the copy-through
+     */
+    public static CopyThrough async(final int capacityBytes, final Overflow overflow) {
+        return new CopyThrough(
+                new AsyncCopier(System.out, capacityBytes, overflow, "copy-through-out"),
+                new AsyncCopier(System.err, capacityBytes, overflow, "copy-through-err"),
+                UnaryOperator.identity());
+    }
+
+    /**
+     * Add a stage that collapses consecutive repeated lines into the first of them, followed by a line giving the
+     * number of repeats, using the system line separator and the default charset.
+     *
+     * @return a copy-through with the stage added
+     */
+    public CopyThrough withDeduplication() {
+        return withStage(downstream ->
+                new DeduplicatingStage(downstream, System.lineSeparator(), Charset.defaultCharset()));
+    }
+
+    /**
+     * Add a stage that limits the rate at which bytes are written to each original stream, dropping the bytes over
+     * the limit.
+     *
+     * @param bytesPerSecond the rate at which bytes are written, which is also the most written at once
+     * @return a copy-through with the stage added
+     */
+    public CopyThrough withThrottle(final long bytesPerSecond) {
+        return withStage(downstream -> new ThrottlingStage(downstream, bytesPerSecond, System::nanoTime));
+    }
+
+    private CopyThrough withStage(final UnaryOperator<ByteSink> stage) {
+        final UnaryOperator<ByteSink> composed = downstream -> stages.apply(stage.apply(downstream));
+        if (terminalOut == null) {
+            return new CopyThrough(new DirectSink(System.out), new DirectSink(System.err), composed);
+        }
+        return new CopyThrough(terminalOut, terminalErr, composed);
+    }
+
+    /**
+     * Whether copied output is written directly to the original streams, rather than taken by a queue or stage.
+     *
+     * @return true if copied bytes are written directly
+     */
+    boolean isDirect() {
+        return out == null;
+    }
+
+    /**
+     * Pass on a byte copied from standard out.
+     *
+     * @param aByte the byte
+     * @return true if the byte was taken, or false if it should be written directly
+     */
+    boolean copyOut(final byte aByte) {
+        return out != null && out.offer(aByte);
+    }
+
+    /**
+     * Pass on a byte copied from standard error.
+     *
+     * @param aByte the byte
+     * @return true if the byte was taken, or false if it should be written directly
+     */
+    boolean copyErr(final byte aByte) {
+        return err != null && err.offer(aByte);
+    }
+
+    /**
+     * Wait until all held output has been written.
+     */
+    public void flush() {
+        if (out != null) {
+            out.flush();
+            err.flush();
+        }
+    }
+
+    /**
+     * The number of bytes not written, because a queue was full when using {@link Overflow#DISCARD}, or because
+     * they were over the limit of a throttle.
+     *
+     * @return the number of bytes
+     */
+    public long getDropped() {
+        if (out == null) {
+            return 0;
+        }
+        return out.dropped() + err.dropped();
+    }
+
+    /**
+     * Write all held output and stop any background threads. Later output is written directly.
+     */
+    @Override
+    public void close() {
+        if (out != null) {
+            out.close();
+            err.close();
+        }
+    }
+
+    /**
+     * What to do with copied output when a queue is full.
+     */
+    public enum Overflow {
+
+        /**
+         * The writing thread waits until there is space in the queue.
+         */
+        BLOCK,
+
+        /**
+         * The output is not copied, and is counted by {@link #getDropped()}.
+         */
+        DISCARD
+    }
+}
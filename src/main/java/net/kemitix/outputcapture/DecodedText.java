@@ -0,0 +1,147 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.Charset;
+
+/**
+ * The text decoded so far from a captured output stream.
+ *
+ * <p>Each request decodes only the bytes written since the previous request, read from the stream in place rather
+ * than copied out of it. The decoded text is held softly, so it does not pin a second copy of the output in memory;
+ * if it is collected, the next request decodes the stream again from the start. The decoder is only created when
+ * text is first requested.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class DecodedText {
+
+    private static final SoftReference<String> NONE = new SoftReference<>(null);
+
+    private final ByteArrayOutputStream stream;
+    private final Charset charset;
+    private IncrementalDecoder decoder;
+    private SoftReference<String> text = NONE;
+    private int decoded;
+
+    /**
+     * Constructor.
+     *
+     * @param stream  the captured output stream
+     * @param charset the charset to decode the stream from
+     */
+    DecodedText(final ByteArrayOutputStream stream, final Charset charset) {
+        this.stream = stream;
+        this.charset = charset;
+    }
+
+    /**
+     * The text decoded from the complete characters written so far.
+     *
+     * @return the text
+     */
+    synchronized String text() {
+        final int size = stream.size();
+        String current = text.get();
+        if (current == null || size < decoded) {
+            reset();
+            current = "";
+        }
+        if (size > decoded) {
+            final StringBuilder target = new StringBuilder(current.length() + size - decoded).append(current);
+            final IncrementalDecoder streamDecoder = decoder();
+            final int from = decoded;
+            try {
+                stream.writeTo(new RangeOutputStream(from, size,
+                        (bytes, offset, length) -> streamDecoder.decode(bytes, offset, length, target)));
+            } catch (IOException e) {
+                throw new OutputCaptureException(e);
+            }
+            decoded = size;
+            current = target.toString();
+            text = new SoftReference<>(current);
+        }
+        return current;
+    }
+
+    private IncrementalDecoder decoder() {
+        if (decoder == null) {
+            decoder = new IncrementalDecoder(charset);
+        }
+        return decoder;
+    }
+
+    /**
+     * Discard the decoded text, for when the captured output stream has been reset.
+     */
+    synchronized void reset() {
+        text = NONE;
+        decoded = 0;
+        if (decoder != null) {
+            decoder.reset();
+        }
+    }
+
+    /**
+     * The recipient of a range of bytes.
+     */
+    @FunctionalInterface
+    private interface RangeConsumer {
+        void accept(byte[] bytes, int offset, int length);
+    }
+
+    /**
+     * Passes on only the bytes between two positions of the stream written to it.
+     */
+    private static final class RangeOutputStream extends OutputStream {
+
+        private final int from;
+        private final int to;
+        private final RangeConsumer consumer;
+        private int position;
+
+        RangeOutputStream(final int from, final int to, final RangeConsumer consumer) {
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void write(final int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            final int start = Math.max(from, position);
+            final int end = Math.min(to, position + length);
+            if (start < end) {
+                consumer.accept(bytes, offset + start - position, end - start);
+            }
+            position += length;
+        }
+    }
+}
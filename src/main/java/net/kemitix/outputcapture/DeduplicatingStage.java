@@ -0,0 +1,140 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Collapses consecutive repeated lines into the first of them, followed by a line giving the number of repeats.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class DeduplicatingStage implements ByteSink {
+
+    private static final int INITIAL_CAPACITY = 128;
+
+    private final ByteSink downstream;
+    private final byte[] separator;
+    private final Charset charset;
+    private byte[] line = new byte[INITIAL_CAPACITY];
+    private int length;
+    private byte[] previous;
+    private int previousLength = -1;
+    private int repeats;
+
+    /**
+     * Constructor.
+     *
+     * @param downstream    the sink to pass lines on to
+     * @param lineSeparator the line separator
+     * @param charset       the charset of the repeat markers
+     */
+    DeduplicatingStage(final ByteSink downstream, final String lineSeparator, final Charset charset) {
+        this.downstream = downstream;
+        this.separator = TextEncoding.withinStream(lineSeparator, charset);
+        this.charset = charset;
+    }
+
+    @Override
+    public synchronized boolean offer(final byte aByte) {
+        if (length == line.length) {
+            line = Arrays.copyOf(line, length * 2);
+        }
+        line[length++] = aByte;
+        if (endsWithSeparator()) {
+            completeLine();
+        }
+        return true;
+    }
+
+    private boolean endsWithSeparator() {
+        if (length < separator.length) {
+            return false;
+        }
+        for (int i = 0; i < separator.length; i++) {
+            if (line[length - separator.length + i] != separator[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void completeLine() {
+        if (sameAsPrevious()) {
+            repeats++;
+        } else {
+            writeRepeats();
+            downstream.offer(line, 0, length);
+            if (previous == null || previous.length < length) {
+                previous = new byte[line.length];
+            }
+            System.arraycopy(line, 0, previous, 0, length);
+            previousLength = length;
+        }
+        length = 0;
+    }
+
+    private boolean sameAsPrevious() {
+        if (length != previousLength) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (line[i] != previous[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeRepeats() {
+        if (repeats > 0) {
+            final byte[] marker = TextEncoding.withinStream("... repeated " + repeats + " times", charset);
+            downstream.offer(marker, 0, marker.length);
+            downstream.offer(separator, 0, separator.length);
+            repeats = 0;
+        }
+    }
+
+    /**
+     * Write the count of any repeats and any partial line, then start afresh.
+     */
+    @Override
+    public synchronized void flush() {
+        writeRepeats();
+        downstream.offer(line, 0, length);
+        length = 0;
+        previousLength = -1;
+        downstream.flush();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        downstream.close();
+    }
+
+    @Override
+    public long dropped() {
+        return downstream.dropped();
+    }
+}
@@ -21,13 +21,8 @@
 
 package net.kemitix.outputcapture;
 
-import lombok.RequiredArgsConstructor;
-
-import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 /**
@@ -35,60 +30,120 @@ import java.util.stream.Stream;
  *
  * @author Paul Campbell (pcampbell@kemitix.net)
  */
-@RequiredArgsConstructor
-class DefaultCapturedLines implements CapturedLines {
-
-    private final List<CapturedOutputLine> lines = new LinkedList<>();
-    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
-    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
-    private final AtomicReference<Byte> lastOut = new AtomicReference<>((byte) 0);
-    private final AtomicReference<Byte> lastErr = new AtomicReference<>((byte) 0);
-    private final List<Byte> currentLineOut = new ArrayList<>();
-    private final List<Byte> currentLineErr = new ArrayList<>();
-    private final String lineSeparator;
+class DefaultCapturedLines implements ListenableLines {
+
+    private final List<CapturedOutputLine> lines;
+    private final LineSplitter out;
+    private final LineSplitter err;
+    private final IncrementalDecoder decoder;
+    private final boolean timed;
+    private LineTimestamps timestamps;
+    private volatile LineListener listener = LineListener.NONE;
+
+    /**
+     * Constructor, using the default options for everything other than the line separator.
+     *
+     * @param lineSeparator the line separator
+     */
+    DefaultCapturedLines(final String lineSeparator) {
+        this(CaptureOptions.defaults().withLineSeparator(lineSeparator));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param options the capture options
+     */
+    DefaultCapturedLines(final CaptureOptions options) {
+        this(options, CapacityHint.NONE.lines());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param options  the capture options
+     * @param capacity the number of lines to allocate space for
+     */
+    DefaultCapturedLines(final CaptureOptions options, final int capacity) {
+        lines = new ArrayList<>(capacity);
+        final byte[] separator = options.lineSeparatorBytes();
+        decoder = new IncrementalDecoder(options.getCharset());
+        timed = options.isTimestamps();
+        timestamps = timed ? new LineTimestamps() : null;
+        out = new LineSplitter(separator, (bytes, offset, length) -> addLine(true, bytes, offset, length));
+        err = new LineSplitter(separator, (bytes, offset, length) -> addLine(false, bytes, offset, length));
+    }
 
     @Override
     public Stream<CapturedOutputLine> stream() {
-        return lines.stream();
+        final CapturedOutputLine[] snapshot;
+        synchronized (lines) {
+            snapshot = lines.toArray(new CapturedOutputLine[0]);
+        }
+        return IndexedSpliterator.stream(i -> snapshot[i], snapshot.length);
     }
 
-    @Override
-    public void writeOut(final Byte aByte) {
-        if (isNewLine(lastOut.get(), aByte)) {
-            if (lineSeparator.length() > 1) {
-                currentLineOut.remove(currentLineOut.size() - 1);
-            }
-            lines.add(CapturedOutputLine.out(currentLineOut));
-            currentLineOut.clear();
+    /**
+     * The number of complete lines captured.
+     *
+     * @return the number of lines
+     */
+    int size() {
+        synchronized (lines) {
+            return lines.size();
+        }
+    }
+
+    /**
+     * Discard all lines and any partial lines, so the instance can be reused for another capture.
+     */
+    void reset() {
+        synchronized (lines) {
+            lines.clear();
             out.reset();
-        } else {
-            currentLineOut.add(aByte);
-            out.write(aByte);
+            err.reset();
+            decoder.reset();
+            timestamps = timed ? new LineTimestamps() : null;
+            listener = LineListener.NONE;
         }
-        lastOut.set(aByte);
     }
 
     @Override
-    public void writeErr(final Byte aByte) {
-        if (isNewLine(lastErr.get(), aByte)) {
-            if (lineSeparator.length() > 1) {
-                currentLineErr.remove(currentLineErr.size() - 1);
+    public void setListener(final LineListener listener) {
+        this.listener = listener;
+    }
+
+    private void addLine(final boolean isOut, final byte[] bytes, final int offset, final int length) {
+        final String string = decoder.decode(bytes, offset, length);
+        final CapturedOutputLine line;
+        synchronized (lines) {
+            if (timestamps == null) {
+                line = new DefaultCapturedOutputLine(isOut, string, LineSequence.next());
+            } else {
+                line = new TimedCapturedOutputLine(isOut, string, LineSequence.next(), timestamps, timestamps.record());
             }
-            lines.add(CapturedOutputLine.err(currentLineErr));
-            currentLineErr.clear();
-            err.reset();
-        } else {
-            currentLineErr.add(aByte);
-            err.write(aByte);
+            lines.add(line);
         }
-        lastErr.set(aByte);
+        listener.completed(line);
     }
 
-    private boolean isNewLine(final Byte previous, final Byte current) {
-        if (lineSeparator.length() > 1) {
-            return lineSeparator.equals(new String(new byte[] {previous, current}));
-        } else {
-            return lineSeparator.equals(new String(new byte[] {current}));
-        }
+    @Override
+    public void writeOut(final Byte aByte) {
+        out.write(aByte);
+    }
+
+    @Override
+    public void writeErr(final Byte aByte) {
+        err.write(aByte);
+    }
+
+    @Override
+    public void writeOut(final byte[] bytes, final int offset, final int length) {
+        out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void writeErr(final byte[] bytes, final int offset, final int length) {
+        err.write(bytes, offset, length);
     }
 }
@@ -22,9 +22,10 @@
 package net.kemitix.outputcapture;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 /**
@@ -32,7 +33,6 @@ import java.util.stream.Stream;
  *
  * @author Paul Campbell (pcampbell@kemitix.net)
  */
-@RequiredArgsConstructor
 class DefaultCapturedOutput implements StreamableCapturedOutput, RoutableCapturedOutput {
 
     private final ByteArrayOutputStream capturedOut;
@@ -44,14 +44,86 @@ class DefaultCapturedOutput implements StreamableCapturedOutput, RoutableCapture
 
     private final CapturedLines capturedLines;
 
+    private final CaptureStore store;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    @Getter
+    private final CaptureOptions options;
+
+    private final DecodedText decodedOut;
+
+    private final DecodedText decodedErr;
+
+    private final IndexedLines indexedLines;
+
+    /**
+     * Constructor.
+     *
+     * @param capturedOut   The captured output written to System.out
+     * @param capturedErr   The captured output written to System.err
+     * @param router        The router to direct the output
+     * @param capturedLines The captured lines
+     * @param options       The capture options
+     */
+    DefaultCapturedOutput(
+            final ByteArrayOutputStream capturedOut,
+            final ByteArrayOutputStream capturedErr,
+            final Router router,
+            final CapturedLines capturedLines,
+            final CaptureOptions options
+    ) {
+        this(CaptureStore.unpooled(capturedOut, capturedErr, capturedLines), router, options);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param store   The store holding the captured output
+     * @param router  The router to direct the output
+     * @param options The capture options
+     */
+    DefaultCapturedOutput(
+            final CaptureStore store,
+            final Router router,
+            final CaptureOptions options
+    ) {
+        this.capturedOut = store.getOut();
+        this.capturedErr = store.getErr();
+        this.router = router;
+        this.capturedLines = store.getCapturedLines();
+        this.store = store;
+        this.options = options;
+        this.decodedOut = new DecodedText(capturedOut, options.getCharset());
+        this.decodedErr = new DecodedText(capturedErr, options.getCharset());
+        this.indexedLines = indexedLines(capturedOut, capturedLines);
+    }
+
+    /**
+     * The index of lines to read the text from, when the streams are compressed, so that the text of the whole
+     * stream is neither decompressed at once nor held.
+     */
+    private static IndexedLines indexedLines(final ByteArrayOutputStream out, final CapturedLines lines) {
+        if (out instanceof CompressedByteArrayOutputStream && lines instanceof IndexedLines) {
+            return (IndexedLines) lines;
+        }
+        return null;
+    }
+
     @Override
     public Stream<String> getStdOut() {
-        return asStream(capturedOut);
+        if (indexedLines != null) {
+            return indexedLines.text(false);
+        }
+        return asStream(decodedOut.text(), options.getLineSeparator());
     }
 
     @Override
     public Stream<String> getStdErr() {
-        return asStream(capturedErr);
+        if (indexedLines != null) {
+            return indexedLines.text(true);
+        }
+        return asStream(decodedErr.text(), options.getLineSeparator());
     }
 
     @Override
@@ -64,12 +136,104 @@ class DefaultCapturedOutput implements StreamableCapturedOutput, RoutableCapture
         return capturedErr;
     }
 
+    @Override
+    public CopyThrough getCopyThrough() {
+        return options.getCopyThrough();
+    }
+
     @Override
     public Stream<CapturedOutputLine> stream() {
         return capturedLines.stream();
     }
 
+    @Override
+    public Map<String, Long> lineCounts() {
+        return capturedLines.lineCounts();
+    }
+
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            store.release();
+        }
+    }
+
     protected CapturedLines getCapturedLines() {
         return capturedLines;
     }
+
+    /**
+     * Update the capture once the callable has completed, flushing any sink, learning its capacity, applying the
+     * retention option and fixing any lines derived from the retained output.
+     *
+     * <p>The capacity and retention are applied even when the sink can not be flushed.</p>
+     *
+     * @param failed whether the callable threw an exception
+     * @throws OutputCaptureException if writing to the sink has failed
+     */
+    void complete(final boolean failed) {
+        try {
+            store.flushSink();
+        } finally {
+            recordCapacity();
+            retain(failed);
+            store.completeLines();
+        }
+    }
+
+    /**
+     * Whether the capture holds all of the output it captured, rather than none or only the tail of it, as when it
+     * was not sampled, wrote to a sink or kept its output only on failure.
+     *
+     * @return true if all of the output is held
+     */
+    boolean isWhole() {
+        return store.isHolding() && !options.isRetainOnFailure();
+    }
+
+    /**
+     * Learn the capacity for later captures with the same key from this capture.
+     */
+    void recordCapacity() {
+        store.recordCapacity();
+    }
+
+    /**
+     * Apply the retention option once the callable has completed.
+     *
+     * <p>When output is retained only on failure, a successful capture releases its buffers and a failed capture
+     * keeps no more than the retained tail of each stream.</p>
+     *
+     * @param failed whether the callable threw an exception
+     */
+    private void retain(final boolean failed) {
+        if (!options.isRetainOnFailure()) {
+            return;
+        }
+        if (failed) {
+            trim(capturedOut, options.getRetainedTailBytes());
+            trim(capturedErr, options.getRetainedTailBytes());
+        } else {
+            capturedOut.reset();
+            capturedErr.reset();
+        }
+        resetDecodedText();
+    }
+
+    private static void trim(final ByteArrayOutputStream stream, final int tailBytes) {
+        if (tailBytes <= 0 || stream.size() <= tailBytes) {
+            return;
+        }
+        final byte[] bytes = stream.toByteArray();
+        stream.reset();
+        stream.write(bytes, bytes.length - tailBytes, tailBytes);
+    }
+
+    /**
+     * Discard any decoded text, for when the captured output streams have been reset.
+     */
+    protected void resetDecodedText() {
+        decodedOut.reset();
+        decodedErr.reset();
+    }
 }
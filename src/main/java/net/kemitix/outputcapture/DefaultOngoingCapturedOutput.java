@@ -25,10 +25,12 @@ import lombok.Getter;
 import lombok.val;
 
 import java.io.ByteArrayOutputStream;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -41,6 +43,9 @@ class DefaultOngoingCapturedOutput extends DefaultCapturedOutput implements Ongo
     @Getter
     private final SafeLatch completedLatch;
 
+    @Getter
+    private final LineSignal signal;
+
     private final AtomicReference<Exception> thrownException;
     private final ExecutorService executor;
 
@@ -49,24 +54,25 @@ class DefaultOngoingCapturedOutput extends DefaultCapturedOutput implements Ongo
     /**
      * Constructor.
      *
-     * @param capturedOut     The captured output written to System.out
-     * @param capturedErr     The captured output written to System.err
+     * @param store           The store holding the captured output
+     * @param signal          The signal waking threads awaiting output
      * @param completedLatch  The Latch indicating the thread is still running
      * @param thrownException The reference to any exception thrown
      * @param router          The router to direct the output
      * @param executor        The executor service
-     * @param capturedLines   The captured lines
+     * @param options         The capture options
      */
     DefaultOngoingCapturedOutput(
-            final ByteArrayOutputStream capturedOut,
-            final ByteArrayOutputStream capturedErr,
+            final CaptureStore store,
+            final LineSignal signal,
             final SafeLatch completedLatch,
             final AtomicReference<Exception> thrownException,
             final Router router,
             final ExecutorService executor,
-            final CapturedLines capturedLines
+            final CaptureOptions options
     ) {
-        super(capturedOut, capturedErr, router, capturedLines);
+        super(store, router, options);
+        this.signal = signal;
         this.completedLatch = completedLatch;
         this.thrownException = thrownException;
         this.executor = executor;
@@ -74,7 +80,8 @@ class DefaultOngoingCapturedOutput extends DefaultCapturedOutput implements Ongo
 
     @Override
     public CapturedOutput getCapturedOutputAndFlush() {
-        val capturedOutput = new DefaultCapturedOutput(copyOf(out()), copyOf(err()), getRouter(), getCapturedLines());
+        val capturedOutput = new DefaultCapturedOutput(
+                copyOf(out()), copyOf(err()), getRouter(), getCapturedLines(), getOptions());
         flush();
         return capturedOutput;
     }
@@ -87,6 +94,19 @@ class DefaultOngoingCapturedOutput extends DefaultCapturedOutput implements Ongo
     public void flush() {
         out().reset();
         err().reset();
+        resetDecodedText();
+    }
+
+    /**
+     * Return the capture's buffers to their pool.
+     *
+     * <p>This implementation does nothing if the capture is still running.</p>
+     */
+    @Override
+    public void close() {
+        if (getCompletedLatch().getCount() == 0) {
+            super.close();
+        }
     }
 
     @Override
@@ -116,4 +136,33 @@ class DefaultOngoingCapturedOutput extends DefaultCapturedOutput implements Ongo
         join();
         return super.stream();
     }
+
+    /**
+     * Block until a line that meets a condition is captured.
+     *
+     * <p>This implementation returns without waiting for the ongoing capture to complete.</p>
+     *
+     * @param condition the condition
+     * @param timeout   the longest time to wait
+     * @return the line, or empty if none was captured before the timeout or the end of the capture
+     */
+    @Override
+    public Optional<CapturedOutputLine> awaitLine(final Predicate<CapturedOutputLine> condition,
+                                                 final Duration timeout) {
+        return signal.awaitLine(condition, timeout);
+    }
+
+    /**
+     * Block until at least a number of bytes have been captured across standard out and standard error.
+     *
+     * <p>This implementation returns without waiting for the ongoing capture to complete.</p>
+     *
+     * @param count   the number of bytes
+     * @param timeout the longest time to wait
+     * @return true if the bytes were captured, or false if the timeout or the end of the capture came first
+     */
+    @Override
+    public boolean awaitBytes(final long count, final Duration timeout) {
+        return signal.awaitBytes(count, timeout);
+    }
 }
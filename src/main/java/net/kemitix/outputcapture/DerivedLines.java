@@ -0,0 +1,121 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.ByteArrayOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * CapturedLines that are split from the captured output streams only when they are requested.
+ *
+ * <p>Standard out lines are followed by standard error lines, as the order they were written in is not known. A
+ * listener is told of each line as it is written, by splitting the output as it is written only while there is
+ * one.</p>
+ *
+ * <p>Once the capture has completed the retained output is split a single time, so that every stream of the lines
+ * returns the same lines with the same sequence numbers.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class DerivedLines implements ListenableLines {
+
+    private final ByteArrayOutputStream out;
+    private final ByteArrayOutputStream err;
+    private final CaptureOptions options;
+    private volatile LineAssembly assembly;
+    private volatile DefaultCapturedLines completed;
+
+    /**
+     * Constructor.
+     *
+     * @param out     the captured standard output
+     * @param err     the captured standard error
+     * @param options the capture options
+     */
+    DerivedLines(final ByteArrayOutputStream out, final ByteArrayOutputStream err, final CaptureOptions options) {
+        this.out = out;
+        this.err = err;
+        this.options = options.withTimestamps(false);
+    }
+
+    @Override
+    public Stream<CapturedOutputLine> stream() {
+        final DefaultCapturedLines lines = completed;
+        if (lines != null) {
+            return lines.stream();
+        }
+        return split().stream();
+    }
+
+    /**
+     * Split the output retained once the capture has completed, and keep those lines for every later stream.
+     */
+    void complete() {
+        completed = split();
+    }
+
+    private DefaultCapturedLines split() {
+        final DefaultCapturedLines lines = new DefaultCapturedLines(options);
+        final byte[] outBytes = out.toByteArray();
+        final byte[] errBytes = err.toByteArray();
+        lines.writeOut(outBytes, 0, outBytes.length);
+        lines.writeErr(errBytes, 0, errBytes.length);
+        return lines;
+    }
+
+    @Override
+    public void setListener(final LineListener listener) {
+        assembly = listener == LineListener.NONE ? null : new LineAssembly(options, listener);
+    }
+
+    @Override
+    public void writeOut(final Byte aByte) {
+        final LineAssembly current = assembly;
+        if (current != null) {
+            current.writeOut(aByte);
+        }
+    }
+
+    @Override
+    public void writeErr(final Byte aByte) {
+        final LineAssembly current = assembly;
+        if (current != null) {
+            current.writeErr(aByte);
+        }
+    }
+
+    @Override
+    public void writeOut(final byte[] bytes, final int offset, final int length) {
+        final LineAssembly current = assembly;
+        if (current != null) {
+            current.writeOut(bytes, offset, length);
+        }
+    }
+
+    @Override
+    public void writeErr(final byte[] bytes, final int offset, final int length) {
+        final LineAssembly current = assembly;
+        if (current != null) {
+            current.writeErr(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.PrintStream;
+
+/**
+ * Writes each byte directly to a stream.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class DirectSink implements ByteSink {
+
+    private final PrintStream target;
+    private volatile boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param target the stream to write to
+     */
+    DirectSink(final PrintStream target) {
+        this.target = target;
+    }
+
+    @Override
+    public boolean offer(final byte aByte) {
+        if (closed) {
+            return false;
+        }
+        target.write(aByte);
+        return true;
+    }
+
+    @Override
+    public void offer(final byte[] bytes, final int offset, final int length) {
+        target.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() {
+        target.flush();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+    }
+
+    @Override
+    public long dropped() {
+        return 0;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.stream.Stream;
+
+/**
+ * CapturedLines that discard everything written to them, for captures that are not recording their output.
+ *
+ * <p>A listener is still told of each line as it is completed, by splitting the output as it is written only while
+ * there is one.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class DiscardedLines implements ListenableLines {
+
+    private final CaptureOptions options;
+    private volatile LineAssembly assembly;
+
+    /**
+     * Constructor, for lines that are never listened to.
+     */
+    DiscardedLines() {
+        this(CaptureOptions.defaults());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param options the capture options, used to split lines for a listener
+     */
+    DiscardedLines(final CaptureOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public Stream<CapturedOutputLine> stream() {
+        return Stream.empty();
+    }
+
+    @Override
+    public void setListener(final LineListener listener) {
+        assembly = listener == LineListener.NONE ? null : new LineAssembly(options, listener);
+    }
+
+    @Override
+    public void writeOut(final Byte aByte) {
+        final LineAssembly current = assembly;
+        if (current != null) {
+            current.writeOut(aByte);
+        }
+    }
+
+    @Override
+    public void writeErr(final Byte aByte) {
+        final LineAssembly current = assembly;
+        if (current != null) {
+            current.writeErr(aByte);
+        }
+    }
+
+    @Override
+    public void writeOut(final byte[] bytes, final int offset, final int length) {
+        final LineAssembly current = assembly;
+        if (current != null) {
+            current.writeOut(bytes, offset, length);
+        }
+    }
+
+    @Override
+    public void writeErr(final byte[] bytes, final int offset, final int length) {
+        final LineAssembly current = assembly;
+        if (current != null) {
+            current.writeErr(bytes, offset, length);
+        }
+    }
+}
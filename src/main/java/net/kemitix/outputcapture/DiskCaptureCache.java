@@ -0,0 +1,269 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A cache of captured output held in a directory, so that it is kept between runs.
+ *
+ * <p>Each entry is a segment file named by a hash of its key and a fingerprint of the callable's inputs, so a change
+ * in the inputs misses the cache rather than returning stale output. Segments hold the captured bytes with their line
+ * index, and are read in a single pass without splitting the lines again. Segments are written to a temporary file
+ * and then moved into place, so a reader never sees a partial segment. When the segments exceed the cache's size, the
+ * least recently used are deleted, along with any temporary files left behind by a writer that did not finish.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * DiskCaptureCache cache = DiskCaptureCache.open(Paths.get("target/capture-cache"), 100_000_000);
+ * CapturedOutput report = cache.capture("report", inputsHash, () -> generateReport(inputs));
+ * }</pre>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class DiskCaptureCache {
+
+    private static final String SUFFIX = ".capture";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int HEX_RADIX = 16;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int HIGH_NIBBLE = 4;
+    private static final int NIBBLE_MASK = 0x0F;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    private DiskCaptureCache(final Path directory, final long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Open the cache held in the directory, creating the directory if needed.
+     *
+     * @param directory the directory
+     * @param maxBytes  the maximum total size of the segment files
+     * @return the cache
+     * @throws OutputCaptureException if the directory can not be created
+     */
+    public static DiskCaptureCache open(final Path directory, final long maxBytes) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new OutputCaptureException(e);
+        }
+        return new DiskCaptureCache(directory, maxBytes);
+    }
+
+    /**
+     * Capture the output of the callable, or return the output cached for the key and fingerprint.
+     *
+     * @param key         the key identifying the callable
+     * @param fingerprint a fingerprint of the inputs to the callable
+     * @param callable    the callable to capture the output of
+     * @return the captured output
+     */
+    public CapturedOutput capture(final String key, final String fingerprint, final ThrowingCallable callable) {
+        return capture(key, fingerprint, callable, CaptureOptions.defaults());
+    }
+
+    /**
+     * Capture the output of the callable, or return the output cached for the key and fingerprint.
+     *
+     * <p>Cached output keeps the charset and line separator it was originally captured with. Output that is not fully
+     * recorded, as when the capture is not sampled, writes to a sink or keeps its output only on failure, is not
+     * written to the cache.</p>
+     *
+     * @param key         the key identifying the callable
+     * @param fingerprint a fingerprint of the inputs to the callable
+     * @param callable    the callable to capture the output of
+     * @param options     the options for the capture
+     * @return the captured output
+     * @throws OutputCaptureException if the callable throws or the segment can not be written
+     */
+    public CapturedOutput capture(
+            final String key,
+            final String fingerprint,
+            final ThrowingCallable callable,
+            final CaptureOptions options
+    ) {
+        final Optional<CapturedOutput> cached = get(key, fingerprint);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        final CapturedOutput captured = CaptureOutput.of(callable, options);
+        if (CachedCapture.isCacheable(captured)) {
+            write(segment(key, fingerprint), CachedCapture.of(captured, options));
+            evict();
+        }
+        return captured;
+    }
+
+    /**
+     * The output cached for the key and fingerprint, if any.
+     *
+     * <p>A segment that can not be read is deleted and treated as missing.</p>
+     *
+     * @param key         the key identifying the callable
+     * @param fingerprint a fingerprint of the inputs to the callable
+     * @return an Optional containing the cached output, or empty
+     */
+    public Optional<CapturedOutput> get(final String key, final String fingerprint) {
+        final Path segment = segment(key, fingerprint);
+        if (!Files.isRegularFile(segment)) {
+            return Optional.empty();
+        }
+        try {
+            final CachedCapture entry = CachedCapture.readFrom(ByteBuffer.wrap(Files.readAllBytes(segment)));
+            Files.setLastModifiedTime(segment, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(entry.toCapturedOutput());
+        } catch (IOException | IllegalArgumentException e) {
+            deleteQuietly(segment);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Remove the output cached for the key and fingerprint.
+     *
+     * @param key         the key identifying the callable
+     * @param fingerprint a fingerprint of the inputs to the callable
+     */
+    public void invalidate(final String key, final String fingerprint) {
+        deleteQuietly(segment(key, fingerprint));
+    }
+
+    private Path segment(final String key, final String fingerprint) {
+        return directory.resolve(hash(key + '\0' + fingerprint) + SUFFIX);
+    }
+
+    private static String hash(final String text) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                hex.append(Character.forDigit((b & BYTE_MASK) >>> HIGH_NIBBLE, HEX_RADIX));
+                hex.append(Character.forDigit(b & NIBBLE_MASK, HEX_RADIX));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new OutputCaptureException(e);
+        }
+    }
+
+    private void write(final Path segment, final CachedCapture entry) {
+        try {
+            final Path temp = Files.createTempFile(directory, segment.getFileName().toString(), TEMP_SUFFIX);
+            try {
+                try (OutputStream file = Files.newOutputStream(temp);
+                     DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file))) {
+                    entry.writeTo(output);
+                }
+                move(temp, segment);
+            } finally {
+                deleteQuietly(temp);
+            }
+        } catch (IOException e) {
+            throw new OutputCaptureException(e);
+        }
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void evict() {
+        final List<Path> files;
+        try (Stream<Path> listed = Files.list(directory)) {
+            files = listed.collect(Collectors.toList());
+        } catch (IOException e) {
+            return;
+        }
+        final long staleBefore = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+        files.stream()
+                .filter(path -> hasSuffix(path, TEMP_SUFFIX) && lastModified(path).toMillis() < staleBefore)
+                .forEach(DiskCaptureCache::deleteQuietly);
+        final List<Path> segments = files.stream()
+                .filter(path -> hasSuffix(path, SUFFIX))
+                .sorted(Comparator.comparing(DiskCaptureCache::lastModified).reversed())
+                .collect(Collectors.toList());
+        long total = 0;
+        for (final Path segment : segments) {
+            total += sizeOf(segment);
+            if (total > maxBytes) {
+                deleteQuietly(segment);
+            }
+        }
+    }
+
+    private static boolean hasSuffix(final Path path, final String suffix) {
+        return path.getFileName().toString().endsWith(suffix);
+    }
+
+    private static FileTime lastModified(final Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(final Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // left for the next eviction
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Optional;
+
+/**
+ * Compares each completed line of a capture with its {@link LineExpectations}, cancelling the callable on the first
+ * divergence.
+ *
+ * <p>When the capture has no expectations, lines are ignored.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class ExpectingLines implements LineListener {
+
+    private final LineExpectations expectations;
+    private final Cancellation cancellation;
+    private final boolean out;
+    private int next;
+    private volatile Divergence divergence;
+
+    /**
+     * Constructor.
+     *
+     * @param options      the capture options
+     * @param cancellation the cancellation of the callable
+     */
+    ExpectingLines(final CaptureOptions options, final Cancellation cancellation) {
+        this.expectations = options.getExpectations();
+        this.cancellation = cancellation;
+        this.out = expectations == null || expectations.isOut();
+    }
+
+    /**
+     * The listener to add to the capture, which is none when it has no expectations, so its lines are not assembled
+     * only to be ignored.
+     *
+     * @return the listener
+     */
+    LineListener listener() {
+        if (expectations == null) {
+            return LineListener.NONE;
+        }
+        return this;
+    }
+
+    @Override
+    public void completed(final CapturedOutputLine line) {
+        if (expectations != null && line.isOut() == out) {
+            compare(line.asString());
+        }
+    }
+
+    private synchronized void compare(final String line) {
+        if (divergence != null) {
+            return;
+        }
+        if (next == expectations.size()) {
+            diverged(null, line);
+        } else if (expectations.test(next, line)) {
+            next++;
+        } else {
+            diverged(expectations.describe(next), line);
+        }
+    }
+
+    private void diverged(final String expected, final String actual) {
+        divergence = new Divergence(next + 1, expected, actual);
+        cancellation.cancel();
+    }
+
+    /**
+     * Record a divergence if the capture has completed without writing every expected line.
+     */
+    synchronized void finish() {
+        if (expectations != null && divergence == null && next < expectations.size()) {
+            divergence = new Divergence(next + 1, expectations.describe(next), null);
+        }
+    }
+
+    /**
+     * The failure to report if the output diverged from the expectations.
+     *
+     * @param cause    the exception thrown by the callable, or null
+     * @param captured the captured output
+     * @return the exception, or empty if the output was as expected
+     */
+    Optional<OutputExpectationException> failure(final Exception cause, final CapturedOutput captured) {
+        final Divergence diverged = divergence;
+        if (diverged == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new OutputExpectationException(
+                diverged.lineNumber, diverged.expected, diverged.actual, cause, captured));
+    }
+
+    /**
+     * Where the output first diverged.
+     */
+    private static final class Divergence {
+
+        private final int lineNumber;
+        private final String expected;
+        private final String actual;
+
+        Divergence(final int lineNumber, final String expected, final String actual) {
+            this.lineNumber = lineNumber;
+            this.expected = expected;
+            this.actual = actual;
+        }
+    }
+}
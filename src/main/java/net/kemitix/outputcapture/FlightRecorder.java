@@ -0,0 +1,241 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Always-on recording of the most recent output written by each thread, to be retrieved when something fails.
+ *
+ * <p>Each thread writes into its own preallocated ring buffers, one for standard out and one for standard error,
+ * without any locking. Once a thread's buffers have been created, recording its output does not allocate. Output is
+ * copied through to the original output as normal. Output redirected by a capture started after the recorder is not
+ * recorded.</p>
+ *
+ * <p>The recordings are held by the recorder, and each thread holds only a weak reference to its own, so closing
+ * the recorder releases the ring buffers of every thread that wrote output, even threads that live on in a
+ * pool.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * FlightRecorder recorder = FlightRecorder.start(4096);
+ * Thread.setDefaultUncaughtExceptionHandler(
+ *     recorder.uncaughtExceptionHandler((e, output) -> report(e, output.getStdErr())));
+ * }</pre>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class FlightRecorder extends AbstractCaptureOutput implements AutoCloseable {
+
+    private final Map<Thread, ThreadRecording> recordings = Collections.synchronizedMap(new WeakHashMap<>());
+    private final ThreadLocal<WeakReference<ThreadRecording>> recording = new ThreadLocal<>();
+    private final int bytesPerThread;
+    private final CaptureOptions options;
+    private final Recorder recorder = new Recorder();
+    private boolean closed;
+
+    private FlightRecorder(final int bytesPerThread, final CaptureOptions options) {
+        this.bytesPerThread = bytesPerThread;
+        this.options = options;
+        enable(recorder);
+    }
+
+    /**
+     * Start recording the output of every thread.
+     *
+     * @param bytesPerThread the number of bytes to keep for each of standard out and standard error for each thread
+     * @return the flight recorder
+     */
+    public static FlightRecorder start(final int bytesPerThread) {
+        return start(bytesPerThread, CaptureOptions.defaults());
+    }
+
+    /**
+     * Start recording the output of every thread.
+     *
+     * @param bytesPerThread the number of bytes to keep for each of standard out and standard error for each thread
+     * @param options        the options used when converting a recording into captured output
+     * @return the flight recorder
+     */
+    public static FlightRecorder start(final int bytesPerThread, final CaptureOptions options) {
+        return new FlightRecorder(bytesPerThread, options);
+    }
+
+    /**
+     * The recent output of the thread.
+     *
+     * @param thread the thread
+     * @return an Optional containing the output, or empty if the thread has not written any output
+     */
+    public Optional<CapturedOutput> snapshot(final Thread thread) {
+        return Optional.ofNullable(recordings.get(thread))
+                .map(this::toCapturedOutput);
+    }
+
+    /**
+     * The recent output of every thread that has written output.
+     *
+     * @return the output of each thread
+     */
+    public Map<Thread, CapturedOutput> snapshotAll() {
+        final Map<Thread, CapturedOutput> result = new HashMap<>();
+        synchronized (recordings) {
+            recordings.forEach((thread, threadRecording) -> result.put(thread, toCapturedOutput(threadRecording)));
+        }
+        return result;
+    }
+
+    /**
+     * Create a handler for uncaught exceptions that passes the exception and the recent output of the failed thread to
+     * the consumer.
+     *
+     * @param consumer the recipient of the exception and the output
+     * @return an UncaughtExceptionHandler
+     */
+    public Thread.UncaughtExceptionHandler uncaughtExceptionHandler(
+            final BiConsumer<Throwable, CapturedOutput> consumer
+    ) {
+        return (thread, throwable) -> consumer.accept(throwable,
+                snapshot(thread).orElseGet(() -> toCapturedOutput(new byte[0], new byte[0])));
+    }
+
+    /**
+     * Stop recording, and release the recordings of every thread.
+     */
+    @Override
+    public void close() {
+        disable(recorder);
+        synchronized (recordings) {
+            closed = true;
+            recordings.clear();
+        }
+    }
+
+    /**
+     * The recording of the current thread, created when it first writes output.
+     *
+     * <p>Output written while the recorder is closing goes to a recording that is not kept.</p>
+     */
+    private ThreadRecording recording() {
+        final WeakReference<ThreadRecording> reference = recording.get();
+        final ThreadRecording existing = reference == null ? null : reference.get();
+        if (existing != null) {
+            return existing;
+        }
+        final ThreadRecording created = new ThreadRecording(bytesPerThread);
+        synchronized (recordings) {
+            if (!closed) {
+                recordings.put(Thread.currentThread(), created);
+                recording.set(new WeakReference<>(created));
+            }
+        }
+        return created;
+    }
+
+    private CapturedOutput toCapturedOutput(final ThreadRecording threadRecording) {
+        return toCapturedOutput(threadRecording.out.snapshot(), threadRecording.err.snapshot());
+    }
+
+    private CapturedOutput toCapturedOutput(final byte[] out, final byte[] err) {
+        final DefaultCapturedLines capturedLines = new DefaultCapturedLines(options);
+        capturedLines.writeOut(out, 0, out.length);
+        capturedLines.writeErr(err, 0, err.length);
+        return new DefaultCapturedOutput(
+                toStream(out),
+                toStream(err),
+                new PromiscuousCopyRouter(capturedLines),
+                capturedLines,
+                options);
+    }
+
+    private static ByteArrayOutputStream toStream(final byte[] bytes) {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream(bytes.length);
+        stream.write(bytes, 0, bytes.length);
+        return stream;
+    }
+
+    /**
+     * The ring buffers for a single thread.
+     */
+    private static final class ThreadRecording {
+
+        private final RingBuffer out;
+        private final RingBuffer err;
+
+        ThreadRecording(final int capacity) {
+            out = new RingBuffer(capacity);
+            err = new RingBuffer(capacity);
+        }
+    }
+
+    /**
+     * Records output from all threads into each thread's ring buffers.
+     */
+    private final class Recorder implements ActiveCapture, PromiscuousRouter, CopyRouter {
+
+        private final CapturedLines discarded = new DiscardedLines();
+
+        @Override
+        public Router getRouter() {
+            return this;
+        }
+
+        @Override
+        public CapturedLines getCapturedLines() {
+            return discarded;
+        }
+
+        @Override
+        public void writeOut(final Byte aByte) {
+            recording().out.write(aByte);
+        }
+
+        @Override
+        public void writeErr(final Byte aByte) {
+            recording().err.write(aByte);
+        }
+
+        @Override
+        public void writeOut(final byte[] bytes, final int offset, final int length) {
+            final RingBuffer out = recording().out;
+            for (int i = offset; i < offset + length; i++) {
+                out.write(bytes[i]);
+            }
+        }
+
+        @Override
+        public void writeErr(final byte[] bytes, final int offset, final int length) {
+            final RingBuffer err = recording().err;
+            for (int i = offset; i < offset + length; i++) {
+                err.write(bytes[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes captured bytes into characters, reusing a single {@link CharsetDecoder}.
+ *
+ * <p>When decoding a stream of writes, any partial multi-byte character at the end of one write is carried over
+ * and completed by the next. Ranges where no byte has its high bit set skip the decoder entirely when the charset
+ * encodes ASCII as single bytes.</p>
+ *
+ * <p>An instance should be used either to decode complete ranges or to decode a single stream, not both.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class IncrementalDecoder {
+
+    private static final int ASCII_RANGE = 128;
+
+    private final CharsetDecoder decoder;
+    private final boolean asciiCompatible;
+    private byte[] pending = new byte[0];
+
+    /**
+     * Constructor.
+     *
+     * @param charset the charset to decode from
+     */
+    IncrementalDecoder(final Charset charset) {
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = isAsciiCompatible(charset);
+    }
+
+    private static boolean isAsciiCompatible(final Charset charset) {
+        final byte[] ascii = new byte[ASCII_RANGE];
+        for (int i = 0; i < ASCII_RANGE; i++) {
+            ascii[i] = (byte) i;
+        }
+        return new String(ascii, charset).equals(new String(ascii, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decode a complete range of bytes, such as a line, into a String.
+     *
+     * @param bytes  the source of the bytes
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return the decoded String
+     */
+    synchronized String decode(final byte[] bytes, final int offset, final int length) {
+        if (asciiCompatible && isAscii(bytes, offset, length)) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        try {
+            return decoder.reset().decode(ByteBuffer.wrap(bytes, offset, length)).toString();
+        } catch (CharacterCodingException e) {
+            throw new OutputCaptureException(e);
+        }
+    }
+
+    /**
+     * Decode the next range of bytes in a stream, appending the complete characters to the target.
+     *
+     * <p>Any incomplete character at the end of the range is held until the next call.</p>
+     *
+     * @param bytes  the source of the bytes
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @param target the recipient of the decoded characters
+     */
+    synchronized void decode(final byte[] bytes, final int offset, final int length, final StringBuilder target) {
+        if (pending.length == 0 && asciiCompatible && isAscii(bytes, offset, length)) {
+            for (int i = offset; i < offset + length; i++) {
+                target.append((char) bytes[i]);
+            }
+            return;
+        }
+        final ByteBuffer in = withPending(bytes, offset, length);
+        final CharBuffer out = CharBuffer.allocate((int) Math.ceil(in.remaining() * decoder.maxCharsPerByte()));
+        decoder.decode(in, out, false);
+        out.flip();
+        target.append(out);
+        pending = new byte[in.remaining()];
+        in.get(pending);
+    }
+
+    private ByteBuffer withPending(final byte[] bytes, final int offset, final int length) {
+        if (pending.length == 0) {
+            return ByteBuffer.wrap(bytes, offset, length);
+        }
+        final ByteBuffer combined = ByteBuffer.allocate(pending.length + length);
+        combined.put(pending).put(bytes, offset, length);
+        combined.flip();
+        return combined;
+    }
+
+    /**
+     * Discard any partial character being carried over.
+     */
+    synchronized void reset() {
+        pending = new byte[0];
+        decoder.reset();
+    }
+
+    private static boolean isAscii(final byte[] bytes, final int offset, final int length) {
+        int bits = 0;
+        for (int i = offset; i < offset + length; i++) {
+            bits |= bytes[i];
+        }
+        return bits >= 0;
+    }
+}
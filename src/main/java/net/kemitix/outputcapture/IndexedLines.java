@@ -0,0 +1,205 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.Stream;
+
+/**
+ * CapturedLines that record only where each line lies in the captured output streams, reading the line from the
+ * stream when it is requested.
+ *
+ * <p>The index of line positions is held uncompressed while the streams themselves may be compressed. Timestamps are
+ * not recorded.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class IndexedLines implements ListenableLines {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final CompressedByteArrayOutputStream out;
+    private final CompressedByteArrayOutputStream err;
+    private final Charset charset;
+    private final int separatorLength;
+    private final LineSplitter outSplitter;
+    private final LineSplitter errSplitter;
+    private final BitSet errLines = new BitSet();
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private int size;
+    private int outPosition;
+    private int errPosition;
+    private volatile LineListener listener = LineListener.NONE;
+
+    /**
+     * Constructor.
+     *
+     * @param out     the captured standard output
+     * @param err     the captured standard error
+     * @param options the capture options
+     */
+    IndexedLines(
+            final CompressedByteArrayOutputStream out,
+            final CompressedByteArrayOutputStream err,
+            final CaptureOptions options
+    ) {
+        this.out = out;
+        this.err = err;
+        this.charset = options.getCharset();
+        final byte[] separator = options.lineSeparatorBytes();
+        this.separatorLength = separator.length;
+        this.outSplitter = new LineSplitter(separator,
+                (bytes, offset, length) -> completed(true, bytes, offset, length, addOut(length)));
+        this.errSplitter = new LineSplitter(separator,
+                (bytes, offset, length) -> completed(false, bytes, offset, length, addErr(length)));
+    }
+
+    private synchronized long addOut(final int length) {
+        final long sequence = add(outPosition, length, false);
+        outPosition += length + separatorLength;
+        return sequence;
+    }
+
+    private synchronized long addErr(final int length) {
+        final long sequence = add(errPosition, length, true);
+        errPosition += length + separatorLength;
+        return sequence;
+    }
+
+    /**
+     * Tell any listener of the line, which is only decoded when there is one.
+     */
+    private void completed(
+            final boolean isOut,
+            final byte[] bytes,
+            final int offset,
+            final int length,
+            final long sequence
+    ) {
+        final LineListener current = listener;
+        if (current != LineListener.NONE) {
+            current.completed(new DefaultCapturedOutputLine(isOut, new String(bytes, offset, length, charset),
+                    sequence));
+        }
+    }
+
+    private long add(final int start, final int length, final boolean isErr) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+            sequences = Arrays.copyOf(sequences, size * 2);
+        }
+        starts[size] = start;
+        lengths[size] = length;
+        sequences[size] = LineSequence.next();
+        errLines.set(size, isErr);
+        return sequences[size++];
+    }
+
+    @Override
+    public void setListener(final LineListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public Stream<CapturedOutputLine> stream() {
+        final int[] lineStarts;
+        final int[] lineLengths;
+        final long[] lineSequences;
+        final BitSet lineErrs;
+        synchronized (this) {
+            lineStarts = Arrays.copyOf(starts, size);
+            lineLengths = Arrays.copyOf(lengths, size);
+            lineSequences = Arrays.copyOf(sequences, size);
+            lineErrs = (BitSet) errLines.clone();
+        }
+        return IndexedSpliterator.stream(i -> {
+            final boolean isErr = lineErrs.get(i);
+            final byte[] bytes = new byte[lineLengths[i]];
+            (isErr ? err : out).read(lineStarts[i], bytes, 0, bytes.length);
+            return new DefaultCapturedOutputLine(!isErr, new String(bytes, charset), lineSequences[i]);
+        }, lineStarts.length);
+    }
+
+    /**
+     * The lines of one stream, read from the stream as they are requested.
+     *
+     * <p>Lines are split in the same way as {@link LineIndex}, including any final line without a separator and
+     * discarding any trailing empty lines.</p>
+     *
+     * @param isErr whether to read the lines of standard error, rather than standard out
+     * @return the lines
+     */
+    Stream<String> text(final boolean isErr) {
+        final CompressedByteArrayOutputStream stream = isErr ? err : out;
+        final int[] lineStarts;
+        final int[] lineLengths;
+        int count = 0;
+        synchronized (this) {
+            lineStarts = new int[size + 1];
+            lineLengths = new int[size + 1];
+            for (int i = 0; i < size; i++) {
+                if (errLines.get(i) == isErr) {
+                    lineStarts[count] = starts[i];
+                    lineLengths[count] = lengths[i];
+                    count++;
+                }
+            }
+            final int position = isErr ? errPosition : outPosition;
+            lineStarts[count] = position;
+            lineLengths[count] = Math.max(0, stream.size() - position);
+            count++;
+        }
+        while (count > 0 && lineLengths[count - 1] == 0) {
+            count--;
+        }
+        return IndexedSpliterator.stream(i -> {
+            final byte[] bytes = new byte[lineLengths[i]];
+            stream.read(lineStarts[i], bytes, 0, bytes.length);
+            return new String(bytes, charset);
+        }, count);
+    }
+
+    @Override
+    public void writeOut(final Byte aByte) {
+        outSplitter.write(aByte);
+    }
+
+    @Override
+    public void writeErr(final Byte aByte) {
+        errSplitter.write(aByte);
+    }
+
+    @Override
+    public void writeOut(final byte[] bytes, final int offset, final int length) {
+        outSplitter.write(bytes, offset, length);
+    }
+
+    @Override
+    public void writeErr(final byte[] bytes, final int offset, final int length) {
+        errSplitter.write(bytes, offset, length);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spliterator over a fixed range of an indexed store, splitting into balanced halves by index.
+ *
+ * @param <T> the type of the elements
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class IndexedSpliterator<T> implements Spliterator<T> {
+
+    private static final int CHARACTERISTICS = SIZED | SUBSIZED | ORDERED | IMMUTABLE;
+
+    private final IntFunction<T> lookup;
+    private final int fence;
+    private int index;
+
+    /**
+     * Constructor.
+     *
+     * @param lookup the function to fetch the element at an index
+     * @param origin the first index, inclusive
+     * @param fence  the last index, exclusive
+     */
+    IndexedSpliterator(final IntFunction<T> lookup, final int origin, final int fence) {
+        this.lookup = lookup;
+        this.index = origin;
+        this.fence = fence;
+    }
+
+    /**
+     * Create a Stream over the first {@code size} elements of the indexed store.
+     *
+     * @param lookup the function to fetch the element at an index
+     * @param size   the number of elements
+     * @param <T>    the type of the elements
+     * @return a sequential Stream that may be made parallel
+     */
+    static <T> Stream<T> stream(final IntFunction<T> lookup, final int size) {
+        return StreamSupport.stream(new IndexedSpliterator<>(lookup, 0, size), false);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        if (index < fence) {
+            action.accept(lookup.apply(index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+        final int end = fence;
+        for (int i = index; i < end; i++) {
+            action.accept(lookup.apply(i));
+        }
+        index = end;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        final int origin = index;
+        final int middle = (origin + fence) >>> 1;
+        if (origin >= middle) {
+            return null;
+        }
+        index = middle;
+        return new IndexedSpliterator<>(lookup, origin, middle);
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * CapturedLines that store each distinct line once, recording each captured line as the id of its text.
+ *
+ * <p>Line texts are held in a single byte arena, indexed by an open addressing hash table of their ids. The
+ * CapturedOutputLine for a line is created when it is requested. Timestamps are not recorded.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class InternedLines implements ListenableLines {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_ARENA_BYTES = 1024;
+    private static final int HASH_MULTIPLIER = 31;
+
+    private final Charset charset;
+    private final LineSplitter outSplitter;
+    private final LineSplitter errSplitter;
+
+    private byte[] arena = new byte[INITIAL_ARENA_BYTES];
+    private int arenaSize;
+    private int[] textStarts = new int[INITIAL_CAPACITY];
+    private int[] textLengths = new int[INITIAL_CAPACITY];
+    private int[] textHashes = new int[INITIAL_CAPACITY];
+    private long[] textCounts = new long[INITIAL_CAPACITY];
+    private int texts;
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    private int[] lineIds = new int[INITIAL_CAPACITY];
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private final BitSet errLines = new BitSet();
+    private int lines;
+    private volatile LineListener listener = LineListener.NONE;
+
+    /**
+     * Constructor.
+     *
+     * @param options the capture options
+     */
+    InternedLines(final CaptureOptions options) {
+        this.charset = options.getCharset();
+        final byte[] separator = options.lineSeparatorBytes();
+        this.outSplitter = new LineSplitter(separator,
+                (bytes, offset, length) -> completed(bytes, offset, length, false));
+        this.errSplitter = new LineSplitter(separator,
+                (bytes, offset, length) -> completed(bytes, offset, length, true));
+    }
+
+    /**
+     * Record the line and tell any listener of it, decoding it only when there is one.
+     */
+    private void completed(final byte[] bytes, final int offset, final int length, final boolean isErr) {
+        final long sequence = add(bytes, offset, length, isErr);
+        final LineListener current = listener;
+        if (current != LineListener.NONE) {
+            current.completed(new DefaultCapturedOutputLine(!isErr, new String(bytes, offset, length, charset),
+                    sequence));
+        }
+    }
+
+    private synchronized long add(final byte[] bytes, final int offset, final int length, final boolean isErr) {
+        final int id = intern(bytes, offset, length);
+        textCounts[id]++;
+        if (lines == lineIds.length) {
+            lineIds = Arrays.copyOf(lineIds, lines * 2);
+            sequences = Arrays.copyOf(sequences, lines * 2);
+        }
+        lineIds[lines] = id;
+        sequences[lines] = LineSequence.next();
+        errLines.set(lines, isErr);
+        return sequences[lines++];
+    }
+
+    @Override
+    public void setListener(final LineListener listener) {
+        this.listener = listener;
+    }
+
+    private int intern(final byte[] bytes, final int offset, final int length) {
+        final int hash = hash(bytes, offset, length);
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            final int id = table[slot] - 1;
+            if (textHashes[id] == hash && matches(id, bytes, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        final int id = addText(bytes, offset, length, hash);
+        table[slot] = id + 1;
+        if (texts * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private static int hash(final byte[] bytes, final int offset, final int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = HASH_MULTIPLIER * hash + bytes[i];
+        }
+        return hash ^ (hash >>> (Integer.SIZE / 2));
+    }
+
+    private boolean matches(final int id, final byte[] bytes, final int offset, final int length) {
+        if (textLengths[id] != length) {
+            return false;
+        }
+        final int start = textStarts[id];
+        for (int i = 0; i < length; i++) {
+            if (arena[start + i] != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int addText(final byte[] bytes, final int offset, final int length, final int hash) {
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        System.arraycopy(bytes, offset, arena, arenaSize, length);
+        if (texts == textStarts.length) {
+            textStarts = Arrays.copyOf(textStarts, texts * 2);
+            textLengths = Arrays.copyOf(textLengths, texts * 2);
+            textHashes = Arrays.copyOf(textHashes, texts * 2);
+            textCounts = Arrays.copyOf(textCounts, texts * 2);
+        }
+        textStarts[texts] = arenaSize;
+        textLengths[texts] = length;
+        textHashes[texts] = hash;
+        arenaSize += length;
+        return texts++;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        final int mask = table.length - 1;
+        for (int id = 0; id < texts; id++) {
+            int slot = textHashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private String text(final byte[] bytes, final int[] starts, final int[] lengths, final int id) {
+        return new String(bytes, starts[id], lengths[id], charset);
+    }
+
+    @Override
+    public Stream<CapturedOutputLine> stream() {
+        final byte[] bytes;
+        final int[] starts;
+        final int[] lengths;
+        final int[] ids;
+        final long[] lineSequences;
+        final BitSet lineErrs;
+        final int count;
+        synchronized (this) {
+            bytes = arena;
+            starts = textStarts;
+            lengths = textLengths;
+            ids = lineIds;
+            lineSequences = sequences;
+            lineErrs = (BitSet) errLines.clone();
+            count = lines;
+        }
+        return IndexedSpliterator.stream(i -> new DefaultCapturedOutputLine(
+                !lineErrs.get(i), text(bytes, starts, lengths, ids[i]), lineSequences[i]), count);
+    }
+
+    @Override
+    public synchronized Map<String, Long> lineCounts() {
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        for (int id = 0; id < texts; id++) {
+            counts.merge(text(arena, textStarts, textLengths, id), textCounts[id], Long::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public void writeOut(final Byte aByte) {
+        outSplitter.write(aByte);
+    }
+
+    @Override
+    public void writeErr(final Byte aByte) {
+        errSplitter.write(aByte);
+    }
+
+    @Override
+    public void writeOut(final byte[] bytes, final int offset, final int length) {
+        outSplitter.write(bytes, offset, length);
+    }
+
+    @Override
+    public void writeErr(final byte[] bytes, final int offset, final int length) {
+        errSplitter.write(bytes, offset, length);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Captures output separately for each of many application supplied keys, such as one per in-flight request.
+ *
+ * <p>A thread writes to the capture for a key while it is bound to that key. Bind the key again each time work for
+ * it moves to another thread. e.g.</p>
+ *
+ * <pre>{@code
+ * KeyedCaptureOutput captures = KeyedCaptureOutput.of(CaptureOptions.defaults());
+ * ...
+ * try (KeyedCaptureOutput.Binding binding = captures.bind(requestId)) {
+ *     legacyLibrary.handle(request);
+ * }
+ * ...
+ * CapturedOutput output = captures.remove(requestId).get();
+ * }</pre>
+ *
+ * <p>Only one entry is added to the active captures however many keys there are, and each thread holds a direct
+ * reference to the capture for its bound key, so routing each write takes constant time.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class KeyedCaptureOutput extends AbstractCaptureOutput implements AutoCloseable {
+
+    private final Map<Object, DefaultCapturedOutput> captures = new ConcurrentHashMap<>();
+    private final ThreadLocal<RoutableCapturedOutput> bound = new ThreadLocal<>();
+    private final CaptureOptions options;
+    private final Dispatcher dispatcher;
+
+    private KeyedCaptureOutput(final CaptureOptions options, final boolean blocking) {
+        this.options = options;
+        this.dispatcher = new Dispatcher(blocking);
+        enable(dispatcher);
+    }
+
+    /**
+     * Start capturing output by key, preventing it from reaching the original output.
+     *
+     * @param options the options for each capture
+     * @return the keyed captures
+     */
+    public static KeyedCaptureOutput of(final CaptureOptions options) {
+        return new KeyedCaptureOutput(options, true);
+    }
+
+    /**
+     * Start capturing output by key, while also passing it on to the original output.
+     *
+     * @param options the options for each capture
+     * @return the keyed captures
+     */
+    public static KeyedCaptureOutput copyOf(final CaptureOptions options) {
+        return new KeyedCaptureOutput(options, false);
+    }
+
+    /**
+     * Bind the current thread to the capture for the key, creating the capture if needed.
+     *
+     * @param key the key
+     * @return the binding, which restores any previous binding of the thread when closed
+     */
+    public Binding bind(final Object key) {
+        final RoutableCapturedOutput previous = bound.get();
+        bound.set(captures.computeIfAbsent(key, this::newCapture));
+        return () -> {
+            if (previous == null) {
+                bound.remove();
+            } else {
+                bound.set(previous);
+            }
+        };
+    }
+
+    /**
+     * The output captured so far for the key.
+     *
+     * @param key the key
+     * @return an Optional containing the captured output, or empty if there is no capture for the key
+     */
+    public Optional<CapturedOutput> get(final Object key) {
+        return Optional.ofNullable(captures.get(key));
+    }
+
+    /**
+     * Stop capturing for the key, completing its capture as a success.
+     *
+     * <p>Any thread still bound to the key continues to write to the removed capture until its binding is closed.</p>
+     *
+     * @param key the key
+     * @return an Optional containing the captured output, or empty if there was no capture for the key
+     * @throws OutputCaptureException if writing to the sink of the capture has failed
+     */
+    public Optional<CapturedOutput> remove(final Object key) {
+        return remove(key, false);
+    }
+
+    /**
+     * Stop capturing for the key, completing its capture.
+     *
+     * <p>The capture is completed in the same way as the capture of a callable, flushing any sink and applying
+     * the retain on failure option of {@link CaptureOptions}, with the work for the key treated as a callable that
+     * threw an exception when it has failed.</p>
+     *
+     * @param key    the key
+     * @param failed whether the work for the key has failed
+     * @return an Optional containing the captured output, or empty if there was no capture for the key
+     * @throws OutputCaptureException if writing to the sink of the capture has failed
+     */
+    public Optional<CapturedOutput> remove(final Object key, final boolean failed) {
+        final Optional<DefaultCapturedOutput> removed = Optional.ofNullable(captures.remove(key));
+        removed.ifPresent(capture -> capture.complete(failed));
+        return removed.map(CapturedOutput.class::cast);
+    }
+
+    /**
+     * Stop capturing output for all keys, completing each remaining capture as a success.
+     *
+     * @throws OutputCaptureException if writing to the sink of a capture has failed
+     */
+    @Override
+    public void close() {
+        disable(dispatcher);
+        captures.values().forEach(capture -> capture.complete(false));
+        captures.clear();
+    }
+
+    private DefaultCapturedOutput newCapture(final Object key) {
+        final CaptureStore store = CaptureStore.create(options.getSampler().sample(key), options, key);
+        return new DefaultCapturedOutput(store, new PromiscuousRedirectRouter(store.getCapturedLines()), options);
+    }
+
+    /**
+     * Restores any previous binding of the thread when closed.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Routes output to the capture for the key bound to the current thread.
+     */
+    private final class Dispatcher implements ActiveCapture, Router {
+
+        private final boolean blocking;
+
+        Dispatcher(final boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        @Override
+        public Router getRouter() {
+            return this;
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return blocking;
+        }
+
+        @Override
+        public boolean accepts(final Byte aByte) {
+            return bound.get() != null;
+        }
+
+        @Override
+        public CapturedLines getCapturedLines() {
+            return bound.get().getRouter().getCapturedLines();
+        }
+
+        @Override
+        public void writeOut(final Byte aByte) {
+            bound.get().writeOut(aByte);
+        }
+
+        @Override
+        public void writeErr(final Byte aByte) {
+            bound.get().writeErr(aByte);
+        }
+
+        @Override
+        public void writeOut(final byte[] bytes, final int offset, final int length) {
+            bound.get().writeOut(bytes, offset, length);
+        }
+
+        @Override
+        public void writeErr(final byte[] bytes, final int offset, final int length) {
+            bound.get().writeErr(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+/**
+ * Splits the output written to each stream into lines, telling a listener of each line as it is completed.
+ *
+ * <p>Used by CapturedLines that do not keep their lines as they are written, so they can still be listened to.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class LineAssembly implements WritableChannels {
+
+    private final LineListener listener;
+    private final IncrementalDecoder decoder;
+    private final LineSplitter out;
+    private final LineSplitter err;
+
+    /**
+     * Constructor.
+     *
+     * @param options  the capture options
+     * @param listener the listener to tell of each line
+     */
+    LineAssembly(final CaptureOptions options, final LineListener listener) {
+        this.listener = listener;
+        this.decoder = new IncrementalDecoder(options.getCharset());
+        final byte[] separator = options.lineSeparatorBytes();
+        this.out = new LineSplitter(separator, (bytes, offset, length) -> completed(true, bytes, offset, length));
+        this.err = new LineSplitter(separator, (bytes, offset, length) -> completed(false, bytes, offset, length));
+    }
+
+    private void completed(final boolean isOut, final byte[] bytes, final int offset, final int length) {
+        listener.completed(new DefaultCapturedOutputLine(
+                isOut, decoder.decode(bytes, offset, length), LineSequence.next()));
+    }
+
+    @Override
+    public void writeOut(final Byte aByte) {
+        out.write(aByte);
+    }
+
+    @Override
+    public void writeErr(final Byte aByte) {
+        err.write(aByte);
+    }
+
+    @Override
+    public void writeOut(final byte[] bytes, final int offset, final int length) {
+        out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void writeErr(final byte[] bytes, final int offset, final int length) {
+        err.write(bytes, offset, length);
+    }
+}
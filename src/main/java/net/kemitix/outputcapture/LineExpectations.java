@@ -0,0 +1,154 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The lines a capture is expected to write, compared with each line as it is completed.
+ *
+ * <p>On the first line that differs, or the first line after those expected, the callable is interrupted and the
+ * capture fails with an {@link OutputExpectationException} reporting where the output diverged. The capture also
+ * fails if it completes before every expected line was written. Lines written to the other stream are not
+ * compared.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * LineExpectations expected = LineExpectations.lines("starting")
+ *         .withLine("a progress line", line -> line.startsWith("progress"));
+ * CaptureOutput.of(callable, CaptureOptions.defaults().withExpectations(expected));
+ * }</pre>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class LineExpectations {
+
+    private final boolean out;
+    private final List<String> descriptions;
+    private final List<Predicate<String>> conditions;
+
+    private LineExpectations(
+            final boolean out,
+            final List<String> descriptions,
+            final List<Predicate<String>> conditions
+    ) {
+        this.out = out;
+        this.descriptions = descriptions;
+        this.conditions = conditions;
+    }
+
+    /**
+     * Expect exactly these lines on standard out.
+     *
+     * @param lines the expected lines
+     * @return the expectations
+     */
+    public static LineExpectations lines(final String... lines) {
+        final List<String> descriptions = new ArrayList<>(lines.length);
+        final List<Predicate<String>> conditions = new ArrayList<>(lines.length);
+        for (final String line : lines) {
+            descriptions.add(describe(line));
+            conditions.add(line::equals);
+        }
+        return new LineExpectations(true, descriptions, conditions);
+    }
+
+    /**
+     * Expectations with an added line that must be equal to the given text.
+     *
+     * @param line the expected line
+     * @return the expectations
+     */
+    public LineExpectations withLine(final String line) {
+        return withLine(describe(line), line::equals);
+    }
+
+    private static String describe(final String line) {
+        return '"' + line + '"';
+    }
+
+    /**
+     * Expectations with an added line that must meet a condition.
+     *
+     * @param description the description of the line reported if it does not meet the condition
+     * @param condition   the condition
+     * @return the expectations
+     */
+    public LineExpectations withLine(final String description, final Predicate<String> condition) {
+        final List<String> addedDescriptions = new ArrayList<>(descriptions);
+        final List<Predicate<String>> addedConditions = new ArrayList<>(conditions);
+        addedDescriptions.add(description);
+        addedConditions.add(condition);
+        return new LineExpectations(out, addedDescriptions, addedConditions);
+    }
+
+    /**
+     * Expectations that are compared with standard error instead of standard out.
+     *
+     * @return the expectations
+     */
+    public LineExpectations onStdErr() {
+        return new LineExpectations(false, descriptions, conditions);
+    }
+
+    /**
+     * Whether the expectations are compared with standard out.
+     *
+     * @return true for standard out, false for standard error
+     */
+    boolean isOut() {
+        return out;
+    }
+
+    /**
+     * The number of expected lines.
+     *
+     * @return the number of lines
+     */
+    int size() {
+        return conditions.size();
+    }
+
+    /**
+     * Whether a line meets its expectation.
+     *
+     * @param index the position of the line
+     * @param line  the line
+     * @return true if the line is as expected
+     */
+    boolean test(final int index, final String line) {
+        return conditions.get(index).test(line);
+    }
+
+    /**
+     * The description of an expected line.
+     *
+     * @param index the position of the line
+     * @return the description
+     */
+    String describe(final int index) {
+        return descriptions.get(index);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * An index of the lines within a block of text, with each line materialised only when it is requested.
+ *
+ * <p>Lines are split in the same way as {@link String#split(String)} would for a literal separator, including
+ * discarding any trailing empty lines.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class LineIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String text;
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private LineIndex(final String text) {
+        this.text = text;
+    }
+
+    /**
+     * Index the lines in the text.
+     *
+     * @param text      the text to index
+     * @param separator the line separator
+     * @return the index of lines
+     */
+    static LineIndex of(final String text, final String separator) {
+        final LineIndex index = new LineIndex(text);
+        if (text.isEmpty()) {
+            return index;
+        }
+        int start = 0;
+        int found = text.indexOf(separator);
+        while (found >= 0) {
+            index.add(start, found);
+            start = found + separator.length();
+            found = text.indexOf(separator, start);
+        }
+        index.add(start, text.length());
+        while (index.size > 0 && index.starts[index.size - 1] == index.ends[index.size - 1]) {
+            index.size--;
+        }
+        return index;
+    }
+
+    private void add(final int start, final int end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * The number of lines.
+     *
+     * @return the number of lines
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Fetch the line at the index.
+     *
+     * @param index the index of the line
+     * @return the line, without any line separator
+     */
+    String line(final int index) {
+        return text.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * Stream the lines.
+     *
+     * @return a Stream of lines that splits evenly when made parallel
+     */
+    Stream<String> stream() {
+        return IndexedSpliterator.stream(this::line, size);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+/**
+ * Told of each line of a capture as it is completed.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+@FunctionalInterface
+interface LineListener {
+
+    /**
+     * A listener that ignores every line.
+     */
+    LineListener NONE = line -> {
+    };
+
+    /**
+     * Called with each line as it is completed, on the thread that wrote the end of the line.
+     *
+     * @param line the line
+     */
+    void completed(CapturedOutputLine line);
+
+    /**
+     * A listener that tells this listener of each line, then the next.
+     *
+     * @param next the listener to tell after this one
+     * @return the combined listener
+     */
+    default LineListener andThen(final LineListener next) {
+        if (this == NONE) {
+            return next;
+        }
+        if (next == NONE) {
+            return this;
+        }
+        return line -> {
+            completed(line);
+            next.completed(line);
+        };
+    }
+}
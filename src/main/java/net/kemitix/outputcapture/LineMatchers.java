@@ -0,0 +1,265 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Patterns that each captured line is matched against as it is completed, counting the lines that match.
+ *
+ * <p>Literals are found together with a single Aho-Corasick automaton, and regular expressions are found with
+ * {@link java.util.regex.Matcher#find()}. The results can be queried at any time, including while an ongoing capture
+ * continues, and do not need the captured lines to be kept. Results accumulate over every capture using the
+ * matchers.</p>
+ *
+ * <p>Each pattern is identified by its position in the order the patterns were added, and results are kept for each
+ * pattern added, even when two have the same text. Results can also be queried by the text of a pattern, which gives
+ * those of the first pattern added with that text.</p>
+ *
+ * <p>e.g.</p>
+ *
+ * <pre>{@code
+ * LineMatchers matchers = LineMatchers.literals("ERROR", "WARN").withRegex("took \\d+ms");
+ * CaptureOutput.of(callable, CaptureOptions.defaults().withMatchers(matchers));
+ * long errors = matchers.count("ERROR");
+ * }</pre>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class LineMatchers {
+
+    private final List<String> patterns;
+    private final List<Pattern> regexes;
+    private final int[] literalIds;
+    private final int[] regexIds;
+    private final AhoCorasick automaton;
+    private final AtomicLong[] counts;
+    private final List<AtomicReference<String>> firstMatches = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param patterns the text of each pattern, in the order added
+     * @param regexes  the regular expression of each pattern, or null for a literal
+     */
+    private LineMatchers(final List<String> patterns, final List<Pattern> regexes) {
+        this.patterns = Collections.unmodifiableList(patterns);
+        this.regexes = Collections.unmodifiableList(regexes);
+        this.literalIds = ids(regexes, true);
+        this.regexIds = ids(regexes, false);
+        this.automaton = new AhoCorasick(IntStream.of(literalIds).mapToObj(patterns::get).collect(Collectors.toList()));
+        this.counts = new AtomicLong[patterns.size()];
+        for (int id = 0; id < counts.length; id++) {
+            counts[id] = new AtomicLong();
+            firstMatches.add(new AtomicReference<>());
+        }
+    }
+
+    private static int[] ids(final List<Pattern> regexes, final boolean literal) {
+        return IntStream.range(0, regexes.size())
+                .filter(id -> (regexes.get(id) == null) == literal)
+                .toArray();
+    }
+
+    /**
+     * Matchers for literal text.
+     *
+     * @param literals the text to find within lines
+     * @return the matchers
+     */
+    public static LineMatchers literals(final String... literals) {
+        return new LineMatchers(new ArrayList<>(Arrays.asList(literals)),
+                new ArrayList<>(Collections.nCopies(literals.length, (Pattern) null)));
+    }
+
+    /**
+     * Matchers with an added literal, and no results.
+     *
+     * @param literal the text to find within lines
+     * @return the matchers
+     */
+    public LineMatchers withLiteral(final String literal) {
+        return with(literal, null);
+    }
+
+    /**
+     * Matchers with an added regular expression, and no results.
+     *
+     * @param regex the regular expression to find within lines
+     * @return the matchers
+     */
+    public LineMatchers withRegex(final String regex) {
+        return withRegex(Pattern.compile(regex));
+    }
+
+    /**
+     * Matchers with an added regular expression, and no results.
+     *
+     * @param regex the regular expression to find within lines, which is queried by its pattern
+     * @return the matchers
+     */
+    public LineMatchers withRegex(final Pattern regex) {
+        return with(regex.pattern(), regex);
+    }
+
+    private LineMatchers with(final String pattern, final Pattern regex) {
+        final List<String> addedPatterns = new ArrayList<>(patterns);
+        final List<Pattern> addedRegexes = new ArrayList<>(regexes);
+        addedPatterns.add(pattern);
+        addedRegexes.add(regex);
+        return new LineMatchers(addedPatterns, addedRegexes);
+    }
+
+    /**
+     * Match a completed line against every pattern.
+     *
+     * @param line the line, excluding its separator
+     */
+    void match(final String line) {
+        final boolean[] found = automaton.search(line);
+        for (int i = 0; i < found.length; i++) {
+            if (found[i]) {
+                matched(literalIds[i], line);
+            }
+        }
+        for (final int id : regexIds) {
+            if (regexes.get(id).matcher(line).find()) {
+                matched(id, line);
+            }
+        }
+    }
+
+    private void matched(final int id, final String line) {
+        counts[id].incrementAndGet();
+        firstMatches.get(id).compareAndSet(null, line);
+    }
+
+    private int id(final String pattern) {
+        final int id = patterns.indexOf(pattern);
+        if (id < 0) {
+            throw new IllegalArgumentException("Not a registered pattern: " + pattern);
+        }
+        return id;
+    }
+
+    private int checked(final int id) {
+        if (id < 0 || id >= patterns.size()) {
+            throw new IllegalArgumentException("Not a registered pattern id: " + id);
+        }
+        return id;
+    }
+
+    /**
+     * The text of each pattern, in the order they were added, so that the position of a pattern is its id.
+     *
+     * @return the literals and the patterns of the regular expressions
+     */
+    public List<String> patterns() {
+        return patterns;
+    }
+
+    /**
+     * The number of lines that matched a pattern.
+     *
+     * @param pattern the literal, or the pattern of the regular expression
+     * @return the number of matching lines
+     */
+    public long count(final String pattern) {
+        return count(id(pattern));
+    }
+
+    /**
+     * The number of lines that matched a pattern.
+     *
+     * @param id the position of the pattern in the order the patterns were added
+     * @return the number of matching lines
+     */
+    public long count(final int id) {
+        return counts[checked(id)].get();
+    }
+
+    /**
+     * Whether any line matched a pattern.
+     *
+     * @param pattern the literal, or the pattern of the regular expression
+     * @return true if a line matched
+     */
+    public boolean matched(final String pattern) {
+        return count(pattern) > 0;
+    }
+
+    /**
+     * Whether any line matched a pattern.
+     *
+     * @param id the position of the pattern in the order the patterns were added
+     * @return true if a line matched
+     */
+    public boolean matched(final int id) {
+        return count(id) > 0;
+    }
+
+    /**
+     * The first line that matched a pattern.
+     *
+     * @param pattern the literal, or the pattern of the regular expression
+     * @return the line, if any matched
+     */
+    public Optional<String> firstMatch(final String pattern) {
+        return firstMatch(id(pattern));
+    }
+
+    /**
+     * The first line that matched a pattern.
+     *
+     * @param id the position of the pattern in the order the patterns were added
+     * @return the line, if any matched
+     */
+    public Optional<String> firstMatch(final int id) {
+        return Optional.ofNullable(firstMatches.get(checked(id)).get());
+    }
+
+    /**
+     * The number of lines that matched each pattern.
+     *
+     * <p>Where patterns have the same text, the count is that of the first of them.</p>
+     *
+     * @return the counts, keyed by literal or the pattern of the regular expression, in the order they were added
+     */
+    public Map<String, Long> counts() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (int id = 0; id < patterns.size(); id++) {
+            result.putIfAbsent(patterns.get(id), counts[id].get());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The source of sequence numbers for captured lines, shared by all captures.
+ *
+ * <p>A single counter, rather than a striped one, is used as only a single counter can give a total order across
+ * captures. It is only incremented once per completed line, not per byte written.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+final class LineSequence {
+
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private LineSequence() {
+    }
+
+    /**
+     * The next sequence number.
+     *
+     * @return a sequence number greater than any previously returned
+     */
+    static long next() {
+        return COUNTER.incrementAndGet();
+    }
+
+    /**
+     * Reserve a block of consecutive sequence numbers.
+     *
+     * @param count the number of sequence numbers to reserve
+     * @return the first sequence number of the block, each being greater than any previously returned
+     */
+    static long reserve(final long count) {
+        return COUNTER.getAndAdd(count) + 1;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Wakes threads waiting for a line or an amount of output, listening to the lines of the capture and counting the
+ * bytes written through it.
+ *
+ * <p>Each completed line is tested only against the conditions of the threads waiting when it completes, and nothing
+ * is tested when no thread is waiting. A waiting thread tests the lines already captured once, when it starts to
+ * wait, without holding the lock that completed lines are tested under.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class LineSignal implements CapturedLines, LineListener {
+
+    private final CapturedLines lines;
+    private final AtomicLong bytes = new AtomicLong();
+    private final List<LineWaiter> waiters = new ArrayList<>();
+    private volatile int waiting;
+    private volatile long bytesAwaited = Long.MAX_VALUE;
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param lines the lines to write to
+     */
+    LineSignal(final CapturedLines lines) {
+        this.lines = lines;
+    }
+
+    @Override
+    public void completed(final CapturedOutputLine line) {
+        if (waiting == 0) {
+            return;
+        }
+        synchronized (this) {
+            boolean matched = false;
+            for (final LineWaiter waiter : waiters) {
+                if (waiter.result == null && waiter.condition.test(line)) {
+                    waiter.result = line;
+                    matched = true;
+                }
+            }
+            if (matched) {
+                notifyAll();
+            }
+        }
+    }
+
+    private void counted(final int count) {
+        if (bytes.addAndGet(count) >= bytesAwaited) {
+            synchronized (this) {
+                bytesAwaited = Long.MAX_VALUE;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wake every waiting thread as no more output will be captured.
+     */
+    synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Wait for a line that meets a condition.
+     *
+     * @param condition the condition
+     * @param timeout   the longest time to wait
+     * @return the line, or empty if none was captured before the timeout or the end of the capture
+     */
+    Optional<CapturedOutputLine> awaitLine(final Predicate<CapturedOutputLine> condition, final Duration timeout) {
+        final LineWaiter waiter = new LineWaiter(condition);
+        synchronized (this) {
+            waiters.add(waiter);
+            waiting = waiters.size();
+        }
+        try {
+            // lines completed from now on are tested as they complete, so only earlier lines need to be checked
+            try (Stream<CapturedOutputLine> captured = lines.stream()) {
+                final Optional<CapturedOutputLine> existing = captured.filter(condition).findFirst();
+                if (existing.isPresent()) {
+                    return existing;
+                }
+            }
+            return awaitResult(waiter, System.nanoTime() + timeout.toNanos());
+        } finally {
+            synchronized (this) {
+                waiters.remove(waiter);
+                waiting = waiters.size();
+            }
+        }
+    }
+
+    private synchronized Optional<CapturedOutputLine> awaitResult(final LineWaiter waiter, final long deadline) {
+        boolean waited = true;
+        while (waiter.result == null && !finished && waited) {
+            waited = waitUntil(deadline);
+        }
+        return Optional.ofNullable(waiter.result);
+    }
+
+    /**
+     * Wait until at least a number of bytes have been captured across both streams.
+     *
+     * @param count   the number of bytes
+     * @param timeout the longest time to wait
+     * @return true if the bytes were captured before the timeout or the end of the capture
+     */
+    synchronized boolean awaitBytes(final long count, final Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        while (bytes.get() < count && !finished) {
+            bytesAwaited = Math.min(bytesAwaited, count);
+            if (bytes.get() >= count || !waitUntil(deadline)) {
+                break;
+            }
+        }
+        return bytes.get() >= count;
+    }
+
+    private boolean waitUntil(final long deadline) {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return false;
+        }
+        try {
+            final long nanosPerMilli = Duration.ofMillis(1).toNanos();
+            wait(remaining / nanosPerMilli, (int) (remaining % nanosPerMilli));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public Stream<CapturedOutputLine> stream() {
+        return lines.stream();
+    }
+
+    @Override
+    public void writeOut(final Byte aByte) {
+        lines.writeOut(aByte);
+        counted(1);
+    }
+
+    @Override
+    public void writeErr(final Byte aByte) {
+        lines.writeErr(aByte);
+        counted(1);
+    }
+
+    @Override
+    public void writeOut(final byte[] bytes, final int offset, final int length) {
+        lines.writeOut(bytes, offset, length);
+        counted(length);
+    }
+
+    @Override
+    public void writeErr(final byte[] bytes, final int offset, final int length) {
+        lines.writeErr(bytes, offset, length);
+        counted(length);
+    }
+
+    /**
+     * A thread waiting for a line.
+     */
+    private static final class LineWaiter {
+
+        private final Predicate<CapturedOutputLine> condition;
+        private CapturedOutputLine result;
+
+        LineWaiter(final Predicate<CapturedOutputLine> condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Splits a stream of bytes into lines, accepting either single bytes or bulk ranges.
+ *
+ * <p>Bulk ranges are scanned for the final byte of the line separator eight bytes at a time, using the
+ * has-zero-byte bit trick over each {@code long} word. Any separator that straddles two writes is matched
+ * against the bytes already held for the current line.</p>
+ *
+ * <p>While capturing, each range written at once to {@code System.out} or {@code System.err}, such as a printed
+ * string, reaches the splitter as a bulk range; only bytes written singly are split a byte at a time.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class LineSplitter {
+
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int INITIAL_CAPACITY = 128;
+
+    private final byte[] separator;
+    private final byte lastSeparatorByte;
+    private final long pattern;
+    private final LineConsumer consumer;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param separator the bytes that make up the line separator
+     * @param consumer  the recipient of each completed line, excluding the separator
+     */
+    LineSplitter(final byte[] separator, final LineConsumer consumer) {
+        this.separator = separator.clone();
+        this.lastSeparatorByte = separator[separator.length - 1];
+        this.pattern = (lastSeparatorByte & BYTE_MASK) * LOW_BITS;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Discard any partial line, keeping the buffer.
+     */
+    void reset() {
+        size = 0;
+    }
+
+    /**
+     * Write a single byte.
+     *
+     * @param aByte the byte
+     */
+    void write(final byte aByte) {
+        ensureCapacity(1);
+        buffer[size++] = aByte;
+        if (aByte == lastSeparatorByte && endsWithSeparator()) {
+            emitBuffer();
+        }
+    }
+
+    /**
+     * Write a range of bytes.
+     *
+     * @param bytes  the source of the bytes
+     * @param offset the offset of the first byte to write
+     * @param length the number of bytes to write
+     */
+    void write(final byte[] bytes, final int offset, final int length) {
+        final ByteBuffer words = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        final int end = offset + length;
+        int start = offset;
+        int found = indexOf(words, start, end);
+        while (found >= 0) {
+            final int next = found + 1;
+            if (size == 0 && isSeparatorAt(bytes, start, next)) {
+                consumer.accept(bytes, start, next - separator.length - start);
+            } else {
+                append(bytes, start, next - start);
+                if (endsWithSeparator()) {
+                    emitBuffer();
+                }
+            }
+            start = next;
+            found = indexOf(words, start, end);
+        }
+        append(bytes, start, end - start);
+    }
+
+    /**
+     * Finds the index of the next occurrence of the final separator byte.
+     *
+     * @param words the bytes to search, in little endian order
+     * @param from  the first index to search, inclusive
+     * @param to    the last index to search, exclusive
+     * @return the index of the byte, or -1 if not found
+     */
+    private int indexOf(final ByteBuffer words, final int from, final int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            final long word = words.getLong(i) ^ pattern;
+            final long matches = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (matches != 0) {
+                return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+            }
+        }
+        final byte[] bytes = words.array();
+        for (; i < to; i++) {
+            if (bytes[i] == lastSeparatorByte) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isSeparatorAt(final byte[] bytes, final int start, final int end) {
+        final int from = end - separator.length;
+        if (from < start) {
+            return false;
+        }
+        for (int i = 0; i < separator.length; i++) {
+            if (bytes[from + i] != separator[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean endsWithSeparator() {
+        return isSeparatorAt(buffer, 0, size);
+    }
+
+    private void emitBuffer() {
+        consumer.accept(buffer, 0, size - separator.length);
+        size = 0;
+    }
+
+    private void append(final byte[] bytes, final int offset, final int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    private void ensureCapacity(final int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+
+    /**
+     * Receives each completed line.
+     */
+    @FunctionalInterface
+    interface LineConsumer {
+
+        /**
+         * Accept a completed line.
+         *
+         * <p>The bytes are only valid for the duration of the call.</p>
+         *
+         * @param bytes  the source of the bytes
+         * @param offset the offset of the first byte of the line
+         * @param length the number of bytes in the line, excluding the separator
+         */
+        void accept(byte[] bytes, int offset, int length);
+    }
+}
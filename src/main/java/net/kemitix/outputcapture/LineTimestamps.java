@@ -0,0 +1,61 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Arrays;
+
+/**
+ * The times at which each line of a capture was completed, as offsets from the start of the capture.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class LineTimestamps {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long start = System.nanoTime();
+    private long[] offsets = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Record the completion of a line.
+     *
+     * @return the index of the timestamp
+     */
+    synchronized int record() {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        offsets[size] = System.nanoTime() - start;
+        return size++;
+    }
+
+    /**
+     * The offset, in nanoseconds from the start of the capture, that the line was completed.
+     *
+     * @param index the index of the timestamp
+     * @return the offset in nanoseconds
+     */
+    synchronized long offset(final int index) {
+        return offsets[index];
+    }
+}
@@ -0,0 +1,115 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Analysis of the times that captured lines were completed, for finding where a captured callable spent its time.
+ *
+ * <p>Requires the capture to have been started with {@link CaptureOptions#withTimestamps(boolean)}. Lines without a
+ * timestamp are ignored.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public final class LineTimings {
+
+    private final CapturedOutputLine[] lines;
+    private final long[] gaps;
+
+    private LineTimings(final CapturedOutputLine[] lines) {
+        this.lines = lines;
+        this.gaps = new long[lines.length];
+        long previous = 0L;
+        for (int i = 0; i < lines.length; i++) {
+            final long timestamp = lines[i].timestamp().orElse(previous);
+            gaps[i] = timestamp - previous;
+            previous = timestamp;
+        }
+    }
+
+    /**
+     * Analyse the timings of the captured output.
+     *
+     * @param capturedOutput the captured output
+     * @return the timings of the lines
+     */
+    public static LineTimings of(final CapturedOutput capturedOutput) {
+        return new LineTimings(capturedOutput.timeline()
+                .filter(line -> line.timestamp().isPresent())
+                .toArray(CapturedOutputLine[]::new));
+    }
+
+    /**
+     * The number of timed lines.
+     *
+     * @return the number of lines
+     */
+    public int size() {
+        return lines.length;
+    }
+
+    /**
+     * The largest gaps between consecutive lines, with the gap before the first line measured from the start of the
+     * capture.
+     *
+     * @param limit the maximum number of gaps to return
+     * @return the gaps, largest first
+     */
+    public List<LineGap> largestGaps(final int limit) {
+        final Comparator<Integer> byGap = Comparator.comparingLong(i -> gaps[i]);
+        final PriorityQueue<Integer> smallestFirst = new PriorityQueue<>(Math.max(1, limit), byGap);
+        for (int i = 0; i < gaps.length && limit > 0; i++) {
+            if (smallestFirst.size() < limit) {
+                smallestFirst.add(i);
+            } else if (gaps[i] > gaps[smallestFirst.peek()]) {
+                smallestFirst.poll();
+                smallestFirst.add(i);
+            }
+        }
+        final List<LineGap> result = new ArrayList<>(smallestFirst.size());
+        while (!smallestFirst.isEmpty()) {
+            final int i = smallestFirst.poll();
+            result.add(0, new LineGap(i == 0 ? null : lines[i - 1], lines[i], gaps[i]));
+        }
+        return result;
+    }
+
+    /**
+     * A histogram of the gaps between consecutive lines.
+     *
+     * <p>Bucket {@code n} counts the gaps of at least {@code 2^n} and less than {@code 2^(n+1)} nanoseconds, except
+     * bucket {@code 0}, which also counts gaps of zero nanoseconds.</p>
+     *
+     * @return the count of gaps in each bucket
+     */
+    public long[] histogram() {
+        final long[] buckets = new long[Long.SIZE];
+        for (final long gap : gaps) {
+            buckets[Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(gap))]++;
+        }
+        return buckets;
+    }
+}
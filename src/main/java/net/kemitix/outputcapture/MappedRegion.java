@@ -0,0 +1,93 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A region of a file mapped into memory, in windows small enough to be mapped individually.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class MappedRegion {
+
+    private static final int WINDOW_SHIFT = 30;
+    private static final long WINDOW_BYTES = 1L << WINDOW_SHIFT;
+
+    private final MappedByteBuffer[] windows;
+    private final long length;
+
+    /**
+     * Constructor.
+     *
+     * @param channel  the file
+     * @param position the offset within the file of the start of the region
+     * @param length   the length of the region
+     * @throws IOException if the region can not be mapped
+     */
+    MappedRegion(final FileChannel channel, final long position, final long length) throws IOException {
+        this.length = length;
+        this.windows = new MappedByteBuffer[(int) ((length + WINDOW_BYTES - 1) >>> WINDOW_SHIFT)];
+        for (int i = 0; i < windows.length; i++) {
+            final long start = (long) i << WINDOW_SHIFT;
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + start,
+                    Math.min(WINDOW_BYTES, length - start));
+        }
+    }
+
+    /**
+     * The length of the region.
+     *
+     * @return the length in bytes
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Copy bytes from the region.
+     *
+     * @param position the offset within the region of the first byte
+     * @param target   the array to copy into
+     * @param offset   the offset within the target of the first byte
+     * @param count    the number of bytes to copy
+     */
+    void read(final long position, final byte[] target, final int offset, final int count) {
+        if (position < 0 || count < 0 || position + count > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        int copied = 0;
+        while (copied < count) {
+            final long at = position + copied;
+            final MappedByteBuffer window = windows[(int) (at >>> WINDOW_SHIFT)];
+            final int from = (int) (at & (WINDOW_BYTES - 1));
+            final int chunk = Math.min(count - copied, window.capacity() - from);
+            final ByteBuffer view = window.duplicate();
+            view.position(from);
+            view.get(target, offset + copied, chunk);
+            copied += chunk;
+        }
+    }
+}
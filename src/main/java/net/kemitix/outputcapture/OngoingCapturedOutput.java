@@ -21,7 +21,9 @@
 
 package net.kemitix.outputcapture;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * The output that is being written to {@code System.out} and {@code System.err}.
@@ -48,6 +50,9 @@ public interface OngoingCapturedOutput extends RoutableCapturedOutput {
     /**
      * Returns an optional containing any exception that was thrown by the captured task.
      *
+     * <p>A failure to flush the capture's sink is returned when the task threw nothing, and is otherwise added to the
+     * task's exception as suppressed.</p>
+     *
      * @return an Optional containing an exception, or empty if none was thrown
      */
     Optional<Throwable> thrownException();
@@ -63,4 +68,26 @@ public interface OngoingCapturedOutput extends RoutableCapturedOutput {
      * Blocks until the async thread completed.
      */
     void join();
+
+    /**
+     * Block until a line that meets a condition is captured.
+     *
+     * <p>Lines already captured are tested once, then each line is tested as it is completed, without polling.</p>
+     *
+     * @param condition the condition
+     * @param timeout   the longest time to wait
+     * @return the line, or empty if none was captured before the timeout or the end of the capture
+     */
+    Optional<CapturedOutputLine> awaitLine(Predicate<CapturedOutputLine> condition, Duration timeout);
+
+    /**
+     * Block until at least a number of bytes have been captured across standard out and standard error.
+     *
+     * <p>Bytes discarded by {@link #flush()} are still counted.</p>
+     *
+     * @param count   the number of bytes
+     * @param timeout the longest time to wait
+     * @return true if the bytes were captured, or false if the timeout or the end of the capture came first
+     */
+    boolean awaitBytes(long count, Duration timeout);
 }
@@ -21,6 +21,8 @@
 
 package net.kemitix.outputcapture;
 
+import java.util.Optional;
+
 /**
  * Thrown when there is an error capturing output or restoring system outputs.
  *
@@ -28,12 +30,50 @@ package net.kemitix.outputcapture;
  */
 public class OutputCaptureException extends RuntimeException {
 
+    private final transient CapturedOutput capturedOutput;
+
     /**
      * Constructor.
      *
      * @param cause   The cause
      */
     public OutputCaptureException(final Exception cause) {
+        this(cause, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cause          The cause
+     * @param capturedOutput The output captured before the cause was thrown
+     */
+    public OutputCaptureException(final Exception cause, final CapturedOutput capturedOutput) {
         super(cause);
+        this.capturedOutput = capturedOutput;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param message        The detail message
+     * @param cause          The cause, or null if there is none
+     * @param capturedOutput The output captured before the failure
+     */
+    protected OutputCaptureException(
+            final String message,
+            final Exception cause,
+            final CapturedOutput capturedOutput
+    ) {
+        super(message, cause);
+        this.capturedOutput = capturedOutput;
+    }
+
+    /**
+     * The output captured before the callable threw its exception, if any.
+     *
+     * @return an Optional containing the captured output, or empty
+     */
+    public Optional<CapturedOutput> getCapturedOutput() {
+        return Optional.ofNullable(capturedOutput);
     }
 }
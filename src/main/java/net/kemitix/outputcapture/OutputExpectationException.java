@@ -0,0 +1,95 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Optional;
+
+/**
+ * Thrown when captured output diverges from the {@link LineExpectations} of the capture.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+public class OutputExpectationException extends OutputCaptureException {
+
+    private final int lineNumber;
+    private final String expected;
+    private final String actual;
+
+    /**
+     * Constructor.
+     *
+     * @param lineNumber     The number of the first line that diverged, counting from one
+     * @param expected       The description of the expected line, or null if no more lines were expected
+     * @param actual         The line that was written, or null if the capture completed without it
+     * @param cause          The exception thrown by the callable, or null if there was none
+     * @param capturedOutput The output captured
+     */
+    public OutputExpectationException(
+            final int lineNumber,
+            final String expected,
+            final String actual,
+            final Exception cause,
+            final CapturedOutput capturedOutput
+    ) {
+        super(message(lineNumber, expected, actual), cause, capturedOutput);
+        this.lineNumber = lineNumber;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    private static String message(final int lineNumber, final String expected, final String actual) {
+        if (expected == null) {
+            return String.format("Unexpected line %d: \"%s\"", lineNumber, actual);
+        }
+        if (actual == null) {
+            return String.format("Missing line %d: expected %s", lineNumber, expected);
+        }
+        return String.format("Line %d: expected %s but was \"%s\"", lineNumber, expected, actual);
+    }
+
+    /**
+     * The number of the first line that diverged.
+     *
+     * @return the line number, counting from one
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * The description of the expected line.
+     *
+     * @return the description, or empty if no more lines were expected
+     */
+    public Optional<String> getExpected() {
+        return Optional.ofNullable(expected);
+    }
+
+    /**
+     * The line that was written.
+     *
+     * @return the line, or empty if the capture completed without it
+     */
+    public Optional<String> getActual() {
+        return Optional.ofNullable(actual);
+    }
+}
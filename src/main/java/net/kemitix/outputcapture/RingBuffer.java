@@ -0,0 +1,74 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+/**
+ * A fixed size buffer holding the most recent bytes written to it.
+ *
+ * <p>Writes are not synchronised and should only be made by a single thread. Reading from another thread while
+ * bytes are being written may include some bytes that are part way through being overwritten.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class RingBuffer {
+
+    private final byte[] bytes;
+    private final int mask;
+    private long position;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the minimum number of bytes to hold, rounded up to a power of two
+     */
+    RingBuffer(final int capacity) {
+        final int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.bytes = new byte[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Write a byte, overwriting the oldest byte if the buffer is full.
+     *
+     * @param aByte the byte
+     */
+    void write(final byte aByte) {
+        bytes[(int) (position & mask)] = aByte;
+        position++;
+    }
+
+    /**
+     * Copy the bytes currently held, oldest first.
+     *
+     * @return the bytes
+     */
+    byte[] snapshot() {
+        final long end = position;
+        final int length = (int) Math.min(end, bytes.length);
+        final byte[] result = new byte[length];
+        final int start = (int) ((end - length) & mask);
+        final int firstPart = Math.min(length, bytes.length - start);
+        System.arraycopy(bytes, start, result, 0, firstPart);
+        System.arraycopy(bytes, 0, result, firstPart, length - firstPart);
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes captured output to numbered files, starting a new file when the current one reaches a size or an age.
+ *
+ * <p>Files are named with the prefix, a dot and the file number, continuing after any files already in the
+ * directory.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class RotatingFileSink implements CaptureSink {
+
+    private final Path directory;
+    private final String prefix;
+    private final long maxBytes;
+    private final long maxAgeNanos;
+    private final LongSupplier clock;
+    private ChannelSink current;
+    private int number;
+    private long written;
+    private long opened;
+
+    /**
+     * Constructor.
+     *
+     * @param directory   the directory
+     * @param prefix      the start of each file name
+     * @param maxBytes    the size at which a new file is started
+     * @param maxAgeNanos the age, in nanoseconds, at which a new file is started
+     * @param clock       the source of the time in nanoseconds
+     */
+    RotatingFileSink(final Path directory, final String prefix, final long maxBytes, final long maxAgeNanos,
+                     final LongSupplier clock) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.maxBytes = maxBytes;
+        this.maxAgeNanos = maxAgeNanos;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void write(final Source source, final ByteBuffer bytes) throws IOException {
+        if (current == null || written > 0 && (written + bytes.remaining() > maxBytes || age() >= maxAgeNanos)) {
+            roll();
+        }
+        written += bytes.remaining();
+        current.write(source, bytes);
+    }
+
+    private long age() {
+        return clock.getAsLong() - opened;
+    }
+
+    private void roll() throws IOException {
+        if (current != null) {
+            current.close();
+        }
+        Files.createDirectories(directory);
+        Path file;
+        do {
+            number++;
+            file = directory.resolve(prefix + "." + number);
+        } while (Files.exists(file));
+        current = new ChannelSink(
+                FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                ChannelSink.FILE_BUFFER_BYTES);
+        written = 0;
+        opened = clock.getAsLong();
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
@@ -26,12 +26,29 @@ package net.kemitix.outputcapture;
  *
  * @author Paul Campbell (pcampbell@kemitix.net)
  */
-interface RoutableCapturedOutput extends CapturedOutput {
-
-    /**
-     * The Router.
-     *
-     * @return The Router
-     */
-    Router getRouter();
+interface RoutableCapturedOutput extends CapturedOutput, ActiveCapture {
+
+    @Override
+    default void writeOut(final Byte aByte) {
+        getRouter().writeOut(aByte);
+        out().write(aByte);
+    }
+
+    @Override
+    default void writeErr(final Byte aByte) {
+        getRouter().writeErr(aByte);
+        err().write(aByte);
+    }
+
+    @Override
+    default void writeOut(final byte[] bytes, final int offset, final int length) {
+        getRouter().writeOut(bytes, offset, length);
+        out().write(bytes, offset, length);
+    }
+
+    @Override
+    default void writeErr(final byte[] bytes, final int offset, final int length) {
+        getRouter().writeErr(bytes, offset, length);
+        err().write(bytes, offset, length);
+    }
 }
@@ -36,13 +36,25 @@ class RouterParameters {
     private final Thread filteringThread;
     @Getter
     private final CapturedLines capturedLines;
+    @Getter
+    private final CaptureContext captureContext;
+    @Getter
+    private final boolean contextPropagation;
 
     /**
-     * Create the default routing parameters, filtering to the current thread.
+     * Create the routing parameters, filtering to the current thread and context.
      *
+     * @param capturedLines  the lines to record output into
+     * @param captureContext the context of the capture
+     * @param options        the capture options
      * @return new RoutingParameters for filtering to the current thread
      */
-    static RouterParameters createDefault() {
-        return new RouterParameters(Thread.currentThread(), new DefaultCapturedLines(System.lineSeparator()));
+    static RouterParameters create(
+            final CapturedLines capturedLines,
+            final CaptureContext captureContext,
+            final CaptureOptions options
+    ) {
+        return new RouterParameters(Thread.currentThread(), capturedLines, captureContext,
+                options.isContextPropagation());
     }
 }
@@ -0,0 +1,77 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether each capture should record its output.
+ *
+ * <p>Captures that are not sampled still route output as normal, e.g. redirected output is still kept from the
+ * original output, but nothing is recorded and the captured output is empty.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+@FunctionalInterface
+public interface Sampler {
+
+    /**
+     * Decide whether to record the output of a capture.
+     *
+     * @param key the key of the capture; the class of the callable, which is distinct for each lambda expression, or
+     *            the key of a {@link KeyedCaptureOutput}
+     * @return true to record the output
+     */
+    boolean sample(Object key);
+
+    /**
+     * A Sampler that records every capture.
+     *
+     * @return a Sampler
+     */
+    static Sampler always() {
+        return key -> true;
+    }
+
+    /**
+     * A Sampler that records a random fraction of captures.
+     *
+     * @param probability the probability, from 0 to 1, that a capture is recorded
+     * @return a Sampler
+     */
+    static Sampler fixedRate(final double probability) {
+        return key -> ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    /**
+     * A Sampler that records captures for each key at no more than a steady rate, allowing short bursts.
+     *
+     * <p>State is kept for every key seen, so keys should be drawn from a bounded set.</p>
+     *
+     * @param capturesPerSecond the rate at which captures are allowed for each key
+     * @param burst             the number of captures allowed at once for each key
+     * @return a Sampler
+     */
+    static Sampler tokenBucket(final double capturesPerSecond, final int burst) {
+        return new TokenBucketSampler(capturesPerSecond, burst);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A ByteArrayOutputStream that pushes its contents to a {@link CaptureSink} in chunks, rather than holding them.
+ *
+ * <p>The stream always appears empty. The first failure to write to the sink stops any further writes, and is
+ * reported when the stream is flushed.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class SinkOutputStream extends ByteArrayOutputStream {
+
+    private static final int CHUNK_BYTES = 8192;
+
+    private final CaptureSink sink;
+    private final CaptureSink.Source source;
+    private final byte[] chunk = new byte[CHUNK_BYTES];
+    private int length;
+    private IOException failure;
+
+    /**
+     * Constructor.
+     *
+     * @param sink   the sink
+     * @param source the stream being captured
+     */
+    SinkOutputStream(final CaptureSink sink, final CaptureSink.Source source) {
+        super(0);
+        this.sink = sink;
+        this.source = source;
+    }
+
+    @Override
+    public synchronized void write(final int b) {
+        chunk[length++] = (byte) b;
+        if (length == chunk.length) {
+            push();
+        }
+    }
+
+    @Override
+    public synchronized void write(final byte[] b, final int off, final int len) {
+        int written = 0;
+        while (written < len) {
+            final int count = Math.min(len - written, chunk.length - length);
+            System.arraycopy(b, off + written, chunk, length, count);
+            length += count;
+            written += count;
+            if (length == chunk.length) {
+                push();
+            }
+        }
+    }
+
+    private void push() {
+        if (failure == null) {
+            try {
+                sink.write(source, ByteBuffer.wrap(chunk, 0, length));
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        length = 0;
+    }
+
+    /**
+     * Push any partial chunk and flush the sink.
+     *
+     * @throws OutputCaptureException if writing to the sink has failed
+     */
+    @Override
+    public synchronized void flush() {
+        push();
+        if (failure == null) {
+            try {
+                sink.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw new OutputCaptureException(failure);
+        }
+    }
+
+    @Override
+    public synchronized void writeTo(final OutputStream out) {
+        // nothing is held
+    }
+
+    @Override
+    public synchronized void reset() {
+        // nothing is held
+    }
+
+    @Override
+    public synchronized byte[] toByteArray() {
+        return new byte[0];
+    }
+
+    @Override
+    public synchronized int size() {
+        return 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "";
+    }
+
+    @Override
+    public synchronized String toString(final String charsetName) {
+        return "";
+    }
+}
@@ -0,0 +1,71 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Sends each stream to its own sink.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class SplitSink implements CaptureSink {
+
+    private final CaptureSink out;
+    private final CaptureSink err;
+
+    /**
+     * Constructor.
+     *
+     * @param out the sink for standard out
+     * @param err the sink for standard error
+     */
+    SplitSink(final CaptureSink out, final CaptureSink err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    @Override
+    public void write(final Source source, final ByteBuffer bytes) throws IOException {
+        if (source == Source.OUT) {
+            out.write(source, bytes);
+        } else {
+            err.write(source, bytes);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+        err.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } finally {
+            err.close();
+        }
+    }
+}
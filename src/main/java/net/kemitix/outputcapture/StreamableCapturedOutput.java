@@ -22,7 +22,6 @@
 package net.kemitix.outputcapture;
 
 import java.io.OutputStream;
-import java.util.Arrays;
 import java.util.stream.Stream;
 
 /**
@@ -40,11 +39,19 @@ interface StreamableCapturedOutput {
      * @return a Stream of Strings
      */
     default Stream<String> asStream(final OutputStream outputStream) {
-        final String string = outputStream.toString();
-        if (string.length() == 0) {
-            return Stream.empty();
-        }
-        return Arrays.stream(string.split(System.lineSeparator()));
+        return asStream(outputStream.toString(), System.lineSeparator());
+    }
+
+    /**
+     * Converts the text into a stream of strings split by the line separator.
+     *
+     * @param text          The text
+     * @param lineSeparator The line separator
+     *
+     * @return a Stream of Strings
+     */
+    default Stream<String> asStream(final String text, final String lineSeparator) {
+        return LineIndex.of(text, lineSeparator).stream();
     }
 
 }
@@ -23,7 +23,6 @@ package net.kemitix.outputcapture;
 
 import lombok.val;
 
-import java.io.ByteArrayOutputStream;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -36,14 +35,20 @@ import java.util.function.Function;
 class SynchronousOutputCapturer extends AbstractCaptureOutput {
 
     private final Function<RouterParameters, Router> routerFactory;
+    private final CaptureOptions options;
 
     /**
      * Constructor.
      *
      * @param routerFactory The Router to direct where written output is sent
+     * @param options       The capture options
      */
-    SynchronousOutputCapturer(final Function<RouterParameters, Router> routerFactory) {
+    SynchronousOutputCapturer(
+            final Function<RouterParameters, Router> routerFactory,
+            final CaptureOptions options
+    ) {
         this.routerFactory = routerFactory;
+        this.options = options;
     }
 
     /**
@@ -53,33 +58,42 @@ class SynchronousOutputCapturer extends AbstractCaptureOutput {
      * @return an instance of CapturedOutput
      */
     CapturedOutput capture(final ThrowingCallable callable) {
-        val capturedOutput = outputCaptor();
+        val captureContext = CaptureContext.current().child();
+        val sampled = options.getSampler().sample(callable.getClass());
+        val cancellation = new Cancellation();
+        val store = CaptureStore.create(sampled, options, callable.getClass());
+        val expecting = new ExpectingLines(options, cancellation);
+        store.listen(MatchingLines.of(options).andThen(expecting.listener()));
+        val capturedOutput = outputCaptor(store, captureContext);
         enable(capturedOutput);
-        invokeCallable(callable);
+        if (cancellation.start()) {
+            invokeCallable(withinContext(callable, captureContext, options));
+        }
+        cancellation.end();
         disable(capturedOutput);
-        throwAnyExceptions();
+        expecting.finish();
+        val thrownException = Optional.ofNullable(getThrownExceptionReference().get());
+        val divergence = expecting.failure(thrownException.orElse(null), capturedOutput);
+        val flushFailure = complete(capturedOutput, thrownException.isPresent() || divergence.isPresent());
+        divergence.ifPresent(e -> {
+            flushFailure.ifPresent(e::addSuppressed);
+            throw e;
+        });
+        thrownException.ifPresent(e -> {
+            val failure = new OutputCaptureException(e, capturedOutput);
+            flushFailure.ifPresent(failure::addSuppressed);
+            throw failure;
+        });
+        flushFailure.ifPresent(e -> {
+            throw e;
+        });
         return capturedOutput;
     }
 
-    private void throwAnyExceptions() {
-        Optional.ofNullable(getThrownExceptionReference().get())
-                .ifPresent(e -> {
-                    throw new OutputCaptureException(e);
-                });
-    }
-
-    private RoutableCapturedOutput outputCaptor() {
-        val capturedOut = new ByteArrayOutputStream();
-        val capturedErr = new ByteArrayOutputStream();
-        val routerParameters = RouterParameters.createDefault();
-        val router = routerFactory.apply(routerParameters);
-        val capturedLines = routerParameters.getCapturedLines();
-        return new DefaultCapturedOutput(
-                capturedOut,
-                capturedErr,
-                router,
-                capturedLines
-        );
+    private DefaultCapturedOutput outputCaptor(final CaptureStore store, final CaptureContext captureContext) {
+        val router = routerFactory.apply(
+                RouterParameters.create(store.getCapturedLines(), captureContext, options));
+        return new DefaultCapturedOutput(store, router, options);
     }
 
 }
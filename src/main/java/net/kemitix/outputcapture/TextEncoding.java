@@ -0,0 +1,71 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Encodes text that is written part way through a captured stream.
+ *
+ * <p>Some charsets, such as UTF-16, start their output with a byte order mark. That mark only appears once, at the
+ * start of a stream, so it is left out of the bytes for text, such as a line separator, found within the stream.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+final class TextEncoding {
+
+    private TextEncoding() {
+    }
+
+    /**
+     * The bytes for the text as they appear within a stream, without any byte order mark.
+     *
+     * @param text    the text
+     * @param charset the charset
+     * @return the bytes
+     */
+    static byte[] withinStream(final String text, final Charset charset) {
+        final byte[] once = encode(text, charset);
+        // anything before the last repeat of the text is written only once, at the start of the stream
+        final int length = encode(text + text, charset).length - once.length;
+        return Arrays.copyOfRange(once, once.length - length, once.length);
+    }
+
+    private static byte[] encode(final String text, final Charset charset) {
+        try {
+            final ByteBuffer buffer = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .encode(CharBuffer.wrap(text));
+            return Arrays.copyOfRange(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.arrayOffset() + buffer.limit());
+        } catch (CharacterCodingException e) {
+            // the encoder replaces malformed and unmappable input, so never throws
+            throw new IllegalStateException(e);
+        }
+    }
+}
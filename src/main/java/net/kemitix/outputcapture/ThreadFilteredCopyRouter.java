@@ -38,6 +38,16 @@ class ThreadFilteredCopyRouter implements CopyRouter, ThreadFilteredRouter, Capt
         return routerParameters.getFilteringThread();
     }
 
+    @Override
+    public CaptureContext getCaptureContext() {
+        return routerParameters.getCaptureContext();
+    }
+
+    @Override
+    public boolean isContextPropagation() {
+        return routerParameters.isContextPropagation();
+    }
+
     @Override
     public CapturedLines getCapturedLines() {
         return routerParameters.getCapturedLines();
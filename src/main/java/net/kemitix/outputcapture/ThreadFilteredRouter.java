@@ -22,7 +22,7 @@
 package net.kemitix.outputcapture;
 
 /**
- * A Router that filters to the filtering thread and redirects the output.
+ * A Router that filters to the filtering thread, or any thread within the capture's context.
  *
  * @author Paul Campbell (pcampbell@kemitix.net)
  */
@@ -30,7 +30,8 @@ interface ThreadFilteredRouter extends Router {
 
     @Override
     default boolean accepts(Byte aByte) {
-        return Thread.currentThread().equals(getFilteringThread());
+        return Thread.currentThread().equals(getFilteringThread())
+                || (isContextPropagation() && CaptureContext.current().isWithin(getCaptureContext()));
     }
 
     /**
@@ -39,4 +40,20 @@ interface ThreadFilteredRouter extends Router {
      * @return a Thread
      */
     Thread getFilteringThread();
+
+    /**
+     * The context to filter on.
+     *
+     * @return a CaptureContext
+     */
+    CaptureContext getCaptureContext();
+
+    /**
+     * Whether other threads may be bound to the capture's context.
+     *
+     * <p>When they can not, the context of the writing thread is not looked up for each byte.</p>
+     *
+     * @return true if the context is propagated
+     */
+    boolean isContextPropagation();
 }
@@ -0,0 +1,94 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate at which bytes are passed on with a token bucket, dropping the bytes over the limit.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class ThrottlingStage implements ByteSink {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final ByteSink downstream;
+    private final double tokensPerNano;
+    private final long burst;
+    private final LongSupplier clock;
+    private double tokens;
+    private long refilled;
+    private long dropped;
+
+    /**
+     * Constructor.
+     *
+     * @param downstream     the sink to pass bytes on to
+     * @param bytesPerSecond the rate at which bytes are passed on, which is also the most passed on at once
+     * @param clock          the source of the time in nanoseconds
+     */
+    ThrottlingStage(final ByteSink downstream, final long bytesPerSecond, final LongSupplier clock) {
+        this.downstream = downstream;
+        this.tokensPerNano = bytesPerSecond / NANOS_PER_SECOND;
+        this.burst = bytesPerSecond;
+        this.clock = clock;
+        this.tokens = bytesPerSecond;
+        this.refilled = clock.getAsLong();
+    }
+
+    @Override
+    public boolean offer(final byte aByte) {
+        if (take()) {
+            return downstream.offer(aByte);
+        }
+        return true;
+    }
+
+    private synchronized boolean take() {
+        final long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilled) * tokensPerNano);
+        refilled = now;
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        dropped++;
+        return false;
+    }
+
+    @Override
+    public void flush() {
+        downstream.flush();
+    }
+
+    @Override
+    public void close() {
+        downstream.close();
+    }
+
+    @Override
+    public synchronized long dropped() {
+        return dropped + downstream.dropped();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.OptionalLong;
+
+/**
+ * A captured line with the time it was completed.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class TimedCapturedOutputLine extends DefaultCapturedOutputLine {
+
+    private final LineTimestamps timestamps;
+    private final int index;
+
+    /**
+     * Constructor.
+     *
+     * @param out        true if written to standard out
+     * @param string     the line
+     * @param sequence   the sequence number of the line
+     * @param timestamps the timestamps of the capture
+     * @param index      the index of this line's timestamp
+     */
+    TimedCapturedOutputLine(
+            final boolean out,
+            final String string,
+            final long sequence,
+            final LineTimestamps timestamps,
+            final int index
+    ) {
+        super(out, string, sequence);
+        this.timestamps = timestamps;
+        this.index = index;
+    }
+
+    @Override
+    public OptionalLong timestamp() {
+        return OptionalLong.of(timestamps.offset(index));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Merges sequences of captured lines, each already in sequence order, into a single timeline.
+ *
+ * <p>Uses a k-way merge, so the cost is proportional to the number of lines times the log of the number of
+ * sequences, rather than re-sorting all the lines.</p>
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+final class Timeline {
+
+    private Timeline() {
+    }
+
+    /**
+     * Merge the sequences of lines.
+     *
+     * @param sources the sequences of lines, each in sequence order
+     * @return a Stream of all the lines in sequence order
+     */
+    static Stream<CapturedOutputLine> merge(final List<CapturedOutputLine[]> sources) {
+        final int total = sources.stream().mapToInt(lines -> lines.length).sum();
+        final CapturedOutputLine[] merged = new CapturedOutputLine[total];
+        final PriorityQueue<Cursor> queue =
+                new PriorityQueue<>(Math.max(1, sources.size()), Comparator.comparingLong(Cursor::sequence));
+        sources.stream()
+                .filter(lines -> lines.length > 0)
+                .map(Cursor::new)
+                .forEach(queue::add);
+        int index = 0;
+        while (!queue.isEmpty()) {
+            final Cursor cursor = queue.poll();
+            merged[index++] = cursor.current();
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return IndexedSpliterator.stream(i -> merged[i], merged.length);
+    }
+
+    /**
+     * Merge the lines of the captured outputs.
+     *
+     * @param captures the captured outputs
+     * @return a Stream of all the lines in sequence order
+     */
+    static Stream<CapturedOutputLine> merge(final CapturedOutput... captures) {
+        return merge(Arrays.stream(captures)
+                .map(capture -> capture.stream().toArray(CapturedOutputLine[]::new))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * The position within one sequence of lines.
+     */
+    private static final class Cursor {
+
+        private final CapturedOutputLine[] lines;
+        private int index;
+
+        Cursor(final CapturedOutputLine[] lines) {
+            this.lines = lines;
+        }
+
+        CapturedOutputLine current() {
+            return lines[index];
+        }
+
+        long sequence() {
+            return lines[index].sequence();
+        }
+
+        boolean advance() {
+            index++;
+            return index < lines.length;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Sampler with a token bucket for each key.
+ *
+ * @author Paul Campbell (pcampbell@kemitix.net)
+ */
+class TokenBucketSampler implements Sampler {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<Object, Bucket> buckets = new ConcurrentHashMap<>();
+    private final double tokensPerNano;
+    private final int burst;
+
+    /**
+     * Constructor.
+     *
+     * @param capturesPerSecond the rate at which captures are allowed for each key
+     * @param burst             the number of captures allowed at once for each key
+     */
+    TokenBucketSampler(final double capturesPerSecond, final int burst) {
+        this.tokensPerNano = capturesPerSecond / NANOS_PER_SECOND;
+        this.burst = burst;
+    }
+
+    @Override
+    public boolean sample(final Object key) {
+        return buckets.computeIfAbsent(key, k -> new Bucket()).take();
+    }
+
+    /**
+     * The tokens available for a single key.
+     */
+    private final class Bucket {
+
+        private double tokens = burst;
+        private long refilled = System.nanoTime();
+
+        synchronized boolean take() {
+            final long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilled) * tokensPerNano);
+            refilled = now;
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+    }
+}
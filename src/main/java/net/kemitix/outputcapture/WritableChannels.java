@@ -24,6 +24,9 @@ package net.kemitix.outputcapture;
 /**
  * Represents a pair of channels, for standard out and error, that can be written to, a byte at a time.
  *
+ * <p>Implementations that can process ranges of bytes more efficiently than single bytes may override the bulk
+ * write methods.</p>
+ *
  * @author Paul Campbell (pcampbell@kemitix.net)
  */
 interface WritableChannels {
@@ -42,4 +45,30 @@ interface WritableChannels {
      */
     void writeErr(Byte aByte);
 
+    /**
+     * Write the range of bytes to the standard output channel.
+     *
+     * @param bytes  the source of the bytes
+     * @param offset the offset of the first byte to write
+     * @param length the number of bytes to write
+     */
+    default void writeOut(final byte[] bytes, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeOut(bytes[i]);
+        }
+    }
+
+    /**
+     * Write the range of bytes to the standard error channel.
+     *
+     * @param bytes  the source of the bytes
+     * @param offset the offset of the first byte to write
+     * @param length the number of bytes to write
+     */
+    default void writeErr(final byte[] bytes, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeErr(bytes[i]);
+        }
+    }
+
 }
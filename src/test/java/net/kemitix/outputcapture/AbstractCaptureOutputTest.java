@@ -53,7 +53,7 @@ public class AbstractCaptureOutputTest {
 
         MyAsyncCapture() {
             final SimpleLatch started = new SimpleLatch();
-            capture = Captors.asyncCopyAll(maxAwaitMilliseconds).capture(() -> {
+            capture = Captors.asyncCopyAll(maxAwaitMilliseconds, CaptureOptions.defaults()).capture(() -> {
                 started.countDown();
                 finished.await();
             });
@@ -0,0 +1,67 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AhoCorasickTest {
+
+    @Test
+    public void overlappingLiteralsAreFound() {
+        //given
+        final AhoCorasick automaton = new AhoCorasick(Arrays.asList("he", "she", "his", "hers"));
+        //then
+        assertThat(automaton.search("ushers")).containsExactly(true, true, false, true);
+        assertThat(automaton.search("this")).containsExactly(false, false, true, false);
+        assertThat(automaton.search("hx")).containsExactly(false, false, false, false);
+    }
+
+    @Test
+    public void literalFoundAfterFailedPartialMatch() {
+        //given
+        final AhoCorasick automaton = new AhoCorasick(Arrays.asList("abcd", "bcx"));
+        //then
+        assertThat(automaton.search("abcx")).containsExactly(false, true);
+    }
+
+    @Test
+    public void emptyLiteralMatchesEveryLine() {
+        //given
+        final AhoCorasick automaton = new AhoCorasick(Collections.singletonList(""));
+        //then
+        assertThat(automaton.search("")).containsExactly(true);
+    }
+
+    @Test
+    public void nonAsciiLiteralsFollowFailureLinks() {
+        //given
+        final AhoCorasick automaton = new AhoCorasick(Arrays.asList("\u00e9t\u00e9", "t\u00e9\u00e0", "\u00e0b"));
+        //then
+        assertThat(automaton.search("x\u00e9t\u00e9\u00e0b")).containsExactly(true, true, true);
+        assertThat(automaton.search("\u00e9t\u00e0")).containsExactly(false, false, false);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncCopierTest {
+
+    @Test
+    public void copiesQueuedBytesInOrderAcrossTheRing() {
+        //given
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final AsyncCopier copier = new AsyncCopier(target, 4, CopyThrough.Overflow.BLOCK, "test-copier");
+        final byte[] bytes = "the quick brown fox".getBytes();
+        //when
+        for (final byte b : bytes) {
+            assertThat(copier.offer(b)).isTrue();
+        }
+        copier.flush();
+        //then
+        assertThat(target.toByteArray()).isEqualTo(bytes);
+        assertThat(copier.dropped()).isZero();
+        copier.close();
+    }
+
+    @Test
+    public void discardsWhenFull() throws InterruptedException {
+        //given
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final OutputStream slow = new OutputStream() {
+            @Override
+            public void write(final int b) {
+                written.write(b);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                started.countDown();
+                awaitQuietly(release);
+                written.write(b, off, len);
+            }
+        };
+        final AsyncCopier copier = new AsyncCopier(slow, 2, CopyThrough.Overflow.DISCARD, "test-copier");
+        copier.offer((byte) 'a');
+        started.await();
+        //when
+        for (int i = 0; i < 10; i++) {
+            copier.offer((byte) 'b');
+        }
+        release.countDown();
+        copier.flush();
+        //then
+        assertThat(copier.dropped()).isEqualTo(8);
+        assertThat(new String(written.toByteArray())).isEqualTo("abb");
+        copier.close();
+    }
+
+    @Test
+    public void closedCopierRefusesBytes() {
+        //given
+        final AsyncCopier copier =
+                new AsyncCopier(new ByteArrayOutputStream(), 4, CopyThrough.Overflow.BLOCK, "test-copier");
+        //when
+        copier.close();
+        //then
+        assertThat(copier.offer((byte) 'a')).isFalse();
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CapacityHintTest {
+
+    @Test
+    public void largerCaptureRaisesHintAtOnce() {
+        //given
+        final CapacityHint hint = CapacityHint.forKey(new Object());
+        //when
+        hint.record(1000, 10, 50);
+        //then
+        assertThat(hint.outBytes()).isEqualTo(1000);
+        assertThat(hint.errBytes()).isEqualTo(32);
+        assertThat(hint.lines()).isEqualTo(50);
+    }
+
+    @Test
+    public void smallerCapturesDecayHintGradually() {
+        //given
+        final CapacityHint hint = CapacityHint.forKey(new Object());
+        hint.record(800, 0, 0);
+        //when
+        hint.record(0, 0, 0);
+        //then
+        assertThat(hint.outBytes()).isEqualTo(700);
+    }
+
+    @Test
+    public void sameKeySharesHint() {
+        //given
+        final Object key = new Object();
+        //then
+        assertThat(CapacityHint.forKey(key)).isSameAs(CapacityHint.forKey(key));
+    }
+
+    @Test
+    public void laterCapturesArePresized() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults().withAdaptiveCapacity(true);
+        final String text = new String(new char[5000]).replace('\0', 'x');
+        final ThrowingCallable callable = () -> System.out.print(text);
+        CaptureOutput.of(callable, options);
+        //when
+        final CapturedOutput captured = CaptureOutput.of(callable, options);
+        //then
+        assertThat(((SizedByteArrayOutputStream) captured.out()).capacity()).isEqualTo(text.length());
+    }
+
+    @Test
+    public void pooledStoreLearnsUnderTheKeyReusingIt() {
+        //given
+        final CapturePool pool = CapturePool.shared(2);
+        final CaptureOptions options = CaptureOptions.defaults();
+        final CapacityHint first = CapacityHint.forKey(new Object());
+        final CapacityHint second = CapacityHint.forKey(new Object());
+        final CaptureStore firstStore = pool.acquire(options, first);
+        firstStore.getOut().write(new byte[1000], 0, 1000);
+        firstStore.recordCapacity();
+        firstStore.release();
+        //when
+        final CaptureStore secondStore = pool.acquire(options, second);
+        secondStore.getOut().write(new byte[100], 0, 100);
+        secondStore.recordCapacity();
+        //then
+        assertThat(secondStore).isSameAs(firstStore);
+        assertThat(first.outBytes()).isEqualTo(1000);
+        assertThat(second.outBytes()).isEqualTo(100);
+    }
+}
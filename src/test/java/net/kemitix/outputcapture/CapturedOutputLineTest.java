@@ -23,4 +23,29 @@ public class CapturedOutputLineTest {
         assertThat(result).isEqualTo(xyz);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void sequenceDefaultsToZero() {
+        //given
+        final CapturedOutputLine line = new CapturedOutputLine() {
+            @Override
+            public boolean isOut() {
+                return true;
+            }
+
+            @Override
+            public boolean isErr() {
+                return false;
+            }
+
+            @Override
+            public String asString() {
+                return "xyz";
+            }
+        };
+        //when
+        final long result = line.sequence();
+        //then
+        assertThat(result).isZero();
+    }
+
+}
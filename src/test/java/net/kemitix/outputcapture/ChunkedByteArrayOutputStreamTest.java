@@ -0,0 +1,95 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChunkedByteArrayOutputStreamTest {
+
+    private final ChunkPool pool = new ChunkPool(2);
+
+    @Test
+    public void writesAcrossChunks() throws IOException {
+        //given
+        final ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(pool);
+        final byte[] bytes = new byte[ChunkPool.CHUNK_SIZE * 2 + 3];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        //when
+        stream.write(bytes, 0, ChunkPool.CHUNK_SIZE - 1);
+        stream.write(bytes[ChunkPool.CHUNK_SIZE - 1]);
+        stream.write(bytes, ChunkPool.CHUNK_SIZE, bytes.length - ChunkPool.CHUNK_SIZE);
+        //then
+        assertThat(stream.size()).isEqualTo(bytes.length);
+        assertThat(stream.toByteArray()).isEqualTo(bytes);
+        final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        stream.writeTo(copy);
+        assertThat(copy.toByteArray()).isEqualTo(bytes);
+    }
+
+    @Test
+    public void resetReturnsChunksToThePool() {
+        //given
+        final ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(pool);
+        stream.write(1);
+        final byte[] chunk = pool.acquire();
+        pool.release(chunk);
+        //when
+        stream.reset();
+        //then
+        assertThat(stream.size()).isZero();
+        assertThat(stream.toByteArray()).isEmpty();
+        assertThat(pool.acquire()).isSameAs(chunk);
+        assertThat(pool.acquire()).isNotSameAs(chunk).hasSize(ChunkPool.CHUNK_SIZE);
+    }
+
+    @Test
+    public void chunksOlderThanTheTailAreReleased() throws IOException {
+        //given
+        final int tail = 10;
+        final ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(pool, tail);
+        final byte[] bytes = new byte[ChunkPool.CHUNK_SIZE * 3 + 5];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        //when
+        stream.write(bytes, 0, ChunkPool.CHUNK_SIZE + 7);
+        for (int i = ChunkPool.CHUNK_SIZE + 7; i < bytes.length; i++) {
+            stream.write(bytes[i]);
+        }
+        //then
+        assertThat(stream.size()).isBetween(tail, tail + ChunkPool.CHUNK_SIZE);
+        final byte[] held = stream.toByteArray();
+        assertThat(held).hasSize(stream.size());
+        assertThat(held).isEqualTo(Arrays.copyOfRange(bytes, bytes.length - held.length, bytes.length));
+        final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        stream.writeTo(copy);
+        assertThat(copy.toByteArray()).isEqualTo(held);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompressedByteArrayOutputStreamTest {
+
+    private static final int SEGMENT_BYTES = 16;
+    private static final int COMPRESSIBLE_BYTES = 64 * 1024;
+    private static final long WAIT_MILLIS = 5000L;
+
+    private final byte[] text = "abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJ".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void contentsSpanningSegmentsAreReturned() throws IOException {
+        //given
+        final CompressedByteArrayOutputStream stream = new CompressedByteArrayOutputStream(SEGMENT_BYTES);
+        //when
+        stream.write(text[0]);
+        stream.write(text, 1, text.length - 1);
+        //then
+        final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        stream.writeTo(copy);
+        assertThat(stream.size()).isEqualTo(text.length);
+        assertThat(stream.toByteArray()).isEqualTo(text);
+        assertThat(copy.toByteArray()).isEqualTo(text);
+    }
+
+    @Test
+    public void rangeAcrossSegmentsIsRead() {
+        //given
+        final CompressedByteArrayOutputStream stream = new CompressedByteArrayOutputStream(SEGMENT_BYTES);
+        stream.write(text, 0, text.length);
+        final byte[] range = new byte[20];
+        //when
+        stream.read(10, range, 0, range.length);
+        //then
+        assertThat(range).isEqualTo(Arrays.copyOfRange(text, 10, 30));
+    }
+
+    @Test
+    public void fullSegmentsAreCompressed() throws InterruptedException {
+        //given
+        final CompressedByteArrayOutputStream stream = new CompressedByteArrayOutputStream(COMPRESSIBLE_BYTES);
+        final byte[] repetitive = new byte[COMPRESSIBLE_BYTES * 4];
+        Arrays.fill(repetitive, (byte) 'x');
+        //when
+        stream.write(repetitive, 0, repetitive.length);
+        //then
+        final long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (stream.storedBytes() > COMPRESSIBLE_BYTES * 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(stream.storedBytes()).isLessThan(COMPRESSIBLE_BYTES * 2);
+        assertThat(stream.toByteArray()).isEqualTo(repetitive);
+    }
+
+    @Test
+    public void resetEmptiesStream() {
+        //given
+        final CompressedByteArrayOutputStream stream = new CompressedByteArrayOutputStream(SEGMENT_BYTES);
+        stream.write(text, 0, text.length);
+        //when
+        stream.reset();
+        stream.write(text, 0, 3);
+        //then
+        assertThat(stream.toByteArray()).isEqualTo(Arrays.copyOf(text, 3));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DecodedTextTest {
+
+    @Test
+    public void decodesCharactersSplitAcrossRequests() {
+        //given
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final DecodedText text = new DecodedText(stream, StandardCharsets.UTF_8);
+        final byte[] euro = "\u20ac".getBytes(StandardCharsets.UTF_8);
+        stream.write('a');
+        stream.write(euro, 0, 1);
+        assertThat(text.text()).isEqualTo("a");
+        //when
+        stream.write(euro, 1, euro.length - 1);
+        stream.write('b');
+        //then
+        assertThat(text.text()).isEqualTo("a\u20acb");
+    }
+
+    @Test
+    public void decodesAgainOnceStreamIsReset() {
+        //given
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final DecodedText text = new DecodedText(stream, StandardCharsets.UTF_8);
+        stream.write('a');
+        assertThat(text.text()).isEqualTo("a");
+        //when
+        stream.reset();
+        stream.write('b');
+        text.reset();
+        //then
+        assertThat(text.text()).isEqualTo("b");
+    }
+
+    @Test
+    public void decodesChunkedStreamInPlace() {
+        //given
+        final ChunkedByteArrayOutputStream stream = new ChunkedByteArrayOutputStream(ChunkPool.shared());
+        final DecodedText text = new DecodedText(stream, StandardCharsets.UTF_8);
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < ChunkPool.CHUNK_SIZE; i++) {
+            expected.append((char) ('a' + i % 26));
+        }
+        final byte[] bytes = expected.toString().getBytes(StandardCharsets.UTF_8);
+        stream.write(bytes, 0, 10);
+        assertThat(text.text()).isEqualTo(expected.substring(0, 10));
+        //when
+        stream.write(bytes, 10, bytes.length - 10);
+        stream.write(bytes, 0, bytes.length);
+        //then
+        assertThat(text.text()).isEqualTo(expected.toString() + expected);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalDecoderTest {
+
+    private final IncrementalDecoder decoder = new IncrementalDecoder(StandardCharsets.UTF_8);
+
+    @Test
+    public void decodesAsciiRange() {
+        //given
+        final byte[] bytes = "-ascii-".getBytes(StandardCharsets.UTF_8);
+        //when
+        final String result = decoder.decode(bytes, 1, 5);
+        //then
+        assertThat(result).isEqualTo("ascii");
+    }
+
+    @Test
+    public void decodesMultiByteRange() {
+        //given
+        final byte[] bytes = "caf\u00e9 \u20ac".getBytes(StandardCharsets.UTF_8);
+        //when
+        final String result = decoder.decode(bytes, 0, bytes.length);
+        //then
+        assertThat(result).isEqualTo("caf\u00e9 \u20ac");
+    }
+
+    @Test
+    public void carriesPartialCharacterAcrossWrites() {
+        //given
+        final byte[] bytes = "a\u20acb".getBytes(StandardCharsets.UTF_8);
+        final StringBuilder target = new StringBuilder();
+        //when
+        decoder.decode(bytes, 0, 2, target);
+        final String partial = target.toString();
+        decoder.decode(bytes, 2, bytes.length - 2, target);
+        //then
+        assertThat(partial).isEqualTo("a");
+        assertThat(target.toString()).isEqualTo("a\u20acb");
+    }
+
+    @Test
+    public void resetDiscardsPartialCharacter() {
+        //given
+        final byte[] bytes = "\u20ac".getBytes(StandardCharsets.UTF_8);
+        final StringBuilder target = new StringBuilder();
+        decoder.decode(bytes, 0, 1, target);
+        //when
+        decoder.reset();
+        decoder.decode(bytes, 0, bytes.length, target);
+        //then
+        assertThat(target.toString()).isEqualTo("\u20ac");
+    }
+
+    @Test
+    public void decodesWithChosenCharset() {
+        //given
+        final IncrementalDecoder latin1 = new IncrementalDecoder(StandardCharsets.ISO_8859_1);
+        final byte[] bytes = {'c', 'a', 'f', (byte) 0xE9};
+        //when
+        final String result = latin1.decode(bytes, 0, bytes.length);
+        //then
+        assertThat(result).isEqualTo("caf\u00e9");
+    }
+}
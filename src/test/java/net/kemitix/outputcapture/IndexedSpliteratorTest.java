@@ -0,0 +1,79 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IndexedSpliteratorTest {
+
+    private final Integer[] values = IntStream.range(0, 10).boxed().toArray(Integer[]::new);
+
+    @Test
+    public void reportsSizedSubsizedOrderedAndImmutable() {
+        //given
+        final Spliterator<Integer> spliterator = new IndexedSpliterator<>(i -> values[i], 0, values.length);
+        //then
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED)).isTrue();
+        assertThat(spliterator.hasCharacteristics(Spliterator.SUBSIZED)).isTrue();
+        assertThat(spliterator.hasCharacteristics(Spliterator.ORDERED)).isTrue();
+        assertThat(spliterator.hasCharacteristics(Spliterator.IMMUTABLE)).isTrue();
+        assertThat(spliterator.getExactSizeIfKnown()).isEqualTo(values.length);
+    }
+
+    @Test
+    public void splitsIntoBalancedHalves() {
+        //given
+        final Spliterator<Integer> spliterator = new IndexedSpliterator<>(i -> values[i], 0, values.length);
+        //when
+        final Spliterator<Integer> prefix = spliterator.trySplit();
+        //then
+        assertThat(prefix.estimateSize()).isEqualTo(5);
+        assertThat(spliterator.estimateSize()).isEqualTo(5);
+        prefix.tryAdvance(value -> assertThat(value).isEqualTo(0));
+        spliterator.tryAdvance(value -> assertThat(value).isEqualTo(5));
+    }
+
+    @Test
+    public void singleElementDoesNotSplit() {
+        //given
+        final Spliterator<Integer> spliterator = new IndexedSpliterator<>(i -> values[i], 3, 4);
+        //then
+        assertThat(spliterator.trySplit()).isNull();
+    }
+
+    @Test
+    public void parallelStreamPreservesOrder() {
+        //when
+        final String result = IndexedSpliterator.stream(i -> values[i], values.length)
+                .parallel()
+                .map(String::valueOf)
+                .collect(Collectors.joining());
+        //then
+        assertThat(result).isEqualTo("0123456789");
+    }
+}
@@ -0,0 +1,63 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InternedLinesTest {
+
+    private static final int DISTINCT = 1000;
+
+    private final InternedLines lines = new InternedLines(CaptureOptions.defaults()
+            .withCharset(StandardCharsets.UTF_8)
+            .withLineSeparator("\n"));
+
+    @Test
+    public void manyDistinctLinesSurviveRehashing() {
+        //given
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < DISTINCT; i++) {
+                final byte[] bytes = ("line " + i + "\n").getBytes(StandardCharsets.UTF_8);
+                lines.writeOut(bytes, 0, bytes.length);
+            }
+        }
+        //then
+        assertThat(lines.lineCounts()).hasSize(DISTINCT).containsValue(2L).doesNotContainValue(1L);
+        assertThat(lines.stream().skip(DISTINCT + 7).findFirst().map(CapturedOutputLine::asString))
+                .contains("line 7");
+    }
+
+    @Test
+    public void emptyLinesAreInterned() {
+        //given
+        final byte[] bytes = "\n\nx\n".getBytes(StandardCharsets.UTF_8);
+        //when
+        lines.writeErr(bytes, 0, bytes.length);
+        //then
+        assertThat(lines.lineCounts()).containsEntry("", 2L).containsEntry("x", 1L);
+        assertThat(lines.stream().allMatch(CapturedOutputLine::isErr)).isTrue();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LineSplitterTest {
+
+    private final List<String> lines = new ArrayList<>();
+
+    private LineSplitter splitter(final String separator) {
+        return new LineSplitter(separator.getBytes(StandardCharsets.UTF_8),
+                (bytes, offset, length) -> lines.add(new String(bytes, offset, length, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void splitsBulkWriteOnSingleByteSeparator() {
+        //given
+        final byte[] input = "a line longer than one word\nb\n\nlast".getBytes(StandardCharsets.UTF_8);
+        //when
+        splitter("\n").write(input, 0, input.length);
+        //then
+        assertThat(lines).containsExactly("a line longer than one word", "b", "");
+    }
+
+    @Test
+    public void splitsBulkWriteOnTwoByteSeparator() {
+        //given
+        final byte[] input = "line 1\r\nline\r2\r\n".getBytes(StandardCharsets.UTF_8);
+        //when
+        splitter("\r\n").write(input, 0, input.length);
+        //then
+        assertThat(lines).containsExactly("line 1", "line\r2");
+    }
+
+    @Test
+    public void matchesSeparatorStraddlingWrites() {
+        //given
+        final LineSplitter splitter = splitter("\r\n");
+        final byte[] first = "line 1\r".getBytes(StandardCharsets.UTF_8);
+        final byte[] second = "\nline 2\r\n".getBytes(StandardCharsets.UTF_8);
+        //when
+        splitter.write(first, 0, first.length);
+        splitter.write(second, 0, second.length);
+        //then
+        assertThat(lines).containsExactly("line 1", "line 2");
+    }
+
+    @Test
+    public void bulkAndSingleByteWritesAgree() {
+        //given
+        final Random random = new Random(1L);
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append(random.nextInt(7) == 0 ? "\r\n" : String.valueOf((char) ('a' + random.nextInt(26))));
+        }
+        final byte[] input = text.toString().getBytes(StandardCharsets.UTF_8);
+        final LineSplitter single = splitter("\r\n");
+        for (byte b : input) {
+            single.write(b);
+        }
+        final List<String> expected = new ArrayList<>(lines);
+        lines.clear();
+        //when
+        final LineSplitter bulk = splitter("\r\n");
+        int offset = 0;
+        while (offset < input.length) {
+            final int length = Math.min(random.nextInt(20), input.length - offset);
+            bulk.write(input, offset, length);
+            offset += length;
+        }
+        //then
+        assertThat(lines).isEqualTo(expected).isNotEmpty();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LineTimingsTest {
+
+    private final CaptureOptions timed = CaptureOptions.defaults().withTimestamps(true);
+
+    @Test
+    public void linesHaveNoTimestampByDefault() {
+        //when
+        final CapturedOutput capturedOutput = CaptureOutput.of(() -> System.out.println("line"));
+        //then
+        assertThat(capturedOutput.stream().map(CapturedOutputLine::timestamp))
+                .allMatch(timestamp -> !timestamp.isPresent());
+        assertThat(LineTimings.of(capturedOutput).size()).isZero();
+    }
+
+    @Test
+    public void linesHaveIncreasingTimestamps() {
+        //when
+        final CapturedOutput capturedOutput = CaptureOutput.of(() -> {
+            System.out.println("first");
+            System.err.println("second");
+        }, timed);
+        //then
+        final List<Long> timestamps = capturedOutput.timeline()
+                .map(line -> line.timestamp().getAsLong())
+                .collect(Collectors.toList());
+        assertThat(timestamps).hasSize(2).isSorted();
+    }
+
+    @Test
+    public void largestGapsFindsTheSlowPhase() {
+        //given
+        final CapturedOutput capturedOutput = CaptureOutput.of(() -> {
+            System.out.println("start");
+            System.out.println("quick");
+            Thread.sleep(50L);
+            System.out.println("slow");
+            System.out.println("end");
+        }, timed);
+        //when
+        final List<LineGap> gaps = LineTimings.of(capturedOutput).largestGaps(1);
+        //then
+        assertThat(gaps).hasSize(1);
+        assertThat(gaps.get(0).getLine().asString()).isEqualTo("slow");
+        assertThat(gaps.get(0).getPrevious().map(CapturedOutputLine::asString)).contains("quick");
+        assertThat(gaps.get(0).getNanos()).isGreaterThanOrEqualTo(50_000_000L);
+    }
+
+    @Test
+    public void histogramCountsEveryGap() {
+        //given
+        final CapturedOutput capturedOutput = CaptureOutput.of(() -> {
+            System.out.println("one");
+            System.out.println("two");
+            System.out.println("three");
+        }, timed);
+        //when
+        final long[] histogram = LineTimings.of(capturedOutput).histogram();
+        //then
+        long total = 0;
+        for (final long count : histogram) {
+            total += count;
+        }
+        assertThat(total).isEqualTo(3);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PassthroughStageTest {
+
+    private final RecordingSink recorded = new RecordingSink();
+
+    @Test
+    public void repeatedLinesAreCollapsed() {
+        //given
+        final ByteSink stage = new DeduplicatingStage(recorded, "\n", StandardCharsets.UTF_8);
+        //when
+        write(stage, "a\na\na\nb\nb\nc");
+        stage.flush();
+        //then
+        assertThat(recorded.text()).isEqualTo("a\n... repeated 2 times\nb\n... repeated 1 times\nc");
+    }
+
+    @Test
+    public void linesWithMultiByteSeparatorAreCollapsed() {
+        //given
+        final ByteSink stage = new DeduplicatingStage(recorded, "\r\n", StandardCharsets.UTF_8);
+        //when
+        write(stage, "x\r\nx\r\ny\r\n");
+        //then
+        assertThat(recorded.text()).isEqualTo("x\r\n... repeated 1 times\r\ny\r\n");
+    }
+
+    @Test
+    public void bytesOverTheRateAreDropped() {
+        //given
+        final AtomicLong clock = new AtomicLong();
+        final ByteSink stage = new ThrottlingStage(recorded, 4, clock::get);
+        //when
+        write(stage, "abcdef");
+        clock.addAndGet(500_000_000L);
+        write(stage, "ghij");
+        //then
+        assertThat(recorded.text()).isEqualTo("abcdgh");
+        assertThat(stage.dropped()).isEqualTo(4);
+    }
+
+    private static void write(final ByteSink sink, final String text) {
+        for (final byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            sink.offer(b);
+        }
+    }
+
+    private static class RecordingSink implements ByteSink {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public boolean offer(final byte aByte) {
+            bytes.write(aByte);
+            return true;
+        }
+
+        @Override
+        public void flush() {
+            // nothing held
+        }
+
+        @Override
+        public void close() {
+            // nothing held
+        }
+
+        @Override
+        public long dropped() {
+            return 0;
+        }
+
+        String text() {
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RingBufferTest {
+
+    @Test
+    public void keepsEverythingUntilFull() {
+        //given
+        final RingBuffer ring = new RingBuffer(8);
+        //when
+        write(ring, "abc");
+        //then
+        assertThat(new String(ring.snapshot(), StandardCharsets.US_ASCII)).isEqualTo("abc");
+    }
+
+    @Test
+    public void keepsOnlyTheMostRecentBytes() {
+        //given
+        final RingBuffer ring = new RingBuffer(8);
+        //when
+        write(ring, "0123456789abc");
+        //then
+        assertThat(new String(ring.snapshot(), StandardCharsets.US_ASCII)).isEqualTo("56789abc");
+    }
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        //given
+        final RingBuffer ring = new RingBuffer(5);
+        //when
+        write(ring, "0123456789");
+        //then
+        assertThat(ring.snapshot()).hasSize(8);
+    }
+
+    private void write(final RingBuffer ring, final String text) {
+        for (final byte b : text.getBytes(StandardCharsets.US_ASCII)) {
+            ring.write(b);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RotatingFileSinkTest {
+
+    private static final long MAX_BYTES = 10;
+    private static final long MAX_AGE = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void newFileIsStartedWhenSizeIsReached() throws IOException {
+        //given
+        final Path directory = folder.getRoot().toPath();
+        final CaptureSink sink = new RotatingFileSink(directory, "out", MAX_BYTES, MAX_AGE, clock::get);
+        //when
+        write(sink, "12345");
+        write(sink, "6789");
+        write(sink, "abc");
+        sink.close();
+        //then
+        assertThat(read(directory.resolve("out.1"))).isEqualTo("123456789");
+        assertThat(read(directory.resolve("out.2"))).isEqualTo("abc");
+    }
+
+    @Test
+    public void newFileIsStartedWhenAgeIsReached() throws IOException {
+        //given
+        final Path directory = folder.getRoot().toPath();
+        final CaptureSink sink = new RotatingFileSink(directory, "out", MAX_BYTES, MAX_AGE, clock::get);
+        //when
+        write(sink, "a");
+        clock.addAndGet(MAX_AGE);
+        write(sink, "b");
+        sink.close();
+        //then
+        assertThat(read(directory.resolve("out.1"))).isEqualTo("a");
+        assertThat(read(directory.resolve("out.2"))).isEqualTo("b");
+    }
+
+    @Test
+    public void existingFilesAreNotOverwritten() throws IOException {
+        //given
+        final Path directory = folder.getRoot().toPath();
+        Files.write(directory.resolve("out.1"), "old".getBytes(StandardCharsets.UTF_8));
+        final CaptureSink sink = new RotatingFileSink(directory, "out", MAX_BYTES, MAX_AGE, clock::get);
+        //when
+        write(sink, "new");
+        sink.close();
+        //then
+        assertThat(read(directory.resolve("out.1"))).isEqualTo("old");
+        assertThat(read(directory.resolve("out.2"))).isEqualTo("new");
+    }
+
+    private void write(final CaptureSink sink, final String text) throws IOException {
+        sink.write(CaptureSink.Source.OUT, ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String read(final Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
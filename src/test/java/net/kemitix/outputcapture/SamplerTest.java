@@ -0,0 +1,74 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2018 Paul Campbell
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+  and associated documentation files (the "Software"), to deal in the Software without restriction,
+  including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+  and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so,
+  subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in all copies
+  or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+  INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE
+  AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.kemitix.outputcapture;
+
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SamplerTest {
+
+    @Test
+    public void unsampledCaptureRecordsNothingButStillRedirects() {
+        //given
+        final CaptureOptions never = CaptureOptions.defaults().withSampler(key -> false);
+        //when
+        final CapturedOutput outer = CaptureOutput.ofAll(() -> {
+            final CapturedOutput inner = CaptureOutput.of(() -> System.out.println("line"), never);
+            assertThat(inner.getStdOut()).isEmpty();
+            assertThat(inner.stream()).isEmpty();
+            assertThat(inner.out().size()).isZero();
+        });
+        //then
+        assertThat(outer.getStdOut()).isEmpty();
+    }
+
+    @Test
+    public void sampledCaptureRecords() {
+        //given
+        final CaptureOptions always = CaptureOptions.defaults().withSampler(Sampler.always());
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> System.out.println("line"), always);
+        //then
+        assertThat(captured.getStdOut()).containsExactly("line");
+    }
+
+    @Test
+    public void fixedRateOfZeroAndOne() {
+        assertThat(Sampler.fixedRate(0).sample("key")).isFalse();
+        assertThat(Sampler.fixedRate(1).sample("key")).isTrue();
+    }
+
+    @Test
+    public void tokenBucketAllowsBurstPerKey() {
+        //given
+        final Sampler sampler = Sampler.tokenBucket(0.001, 2);
+        //when
+        final long sampledA = IntStream.range(0, 5).filter(i -> sampler.sample("a")).count();
+        final long sampledB = IntStream.range(0, 5).filter(i -> sampler.sample("b")).count();
+        //then
+        assertThat(sampledA).isEqualTo(2);
+        assertThat(sampledB).isEqualTo(2);
+    }
+}
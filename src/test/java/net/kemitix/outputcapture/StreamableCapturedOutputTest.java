@@ -58,6 +58,18 @@ public class StreamableCapturedOutputTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    public void whenOutputStreamHasTrailingEmptyLinesThenTheyAreDropped() {
+        //given
+        final OutputStream outputStream = new ByteArrayOutputStream();
+        new PrintStream(outputStream).printf("%nline 1%n%n%n");
+        final MyCapturedOutput capturedOutput = new MyCapturedOutput();
+        //when
+        final Stream<String> result = capturedOutput.asStream(outputStream);
+        //then
+        assertThat(result).containsExactly("", "line 1");
+    }
+
     private class MyCapturedOutput implements StreamableCapturedOutput {
     }
 }
\ No newline at end of file
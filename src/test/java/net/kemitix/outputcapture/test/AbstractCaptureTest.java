@@ -5,10 +5,14 @@ import net.kemitix.outputcapture.SafeLatch;
 import org.junit.After;
 import org.junit.Before;
 
+import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeNoException;
 
 abstract class AbstractCaptureTest {
 
@@ -72,6 +76,20 @@ abstract class AbstractCaptureTest {
         System.err.println(FINISHED_ERR);
     }
 
+    /**
+     * Calls {@code ByteArrayOutputStream.toString(Charset)}, which is only available from Java 10.
+     */
+    String toStringWithCharset(final ByteArrayOutputStream stream, final Charset charset) throws Exception {
+        final Method toString;
+        try {
+            toString = ByteArrayOutputStream.class.getMethod("toString", Charset.class);
+        } catch (NoSuchMethodException e) {
+            assumeNoException(e);
+            throw e;
+        }
+        return (String) toString.invoke(stream, charset);
+    }
+
     void doNothing() {
         // do nothing
     }
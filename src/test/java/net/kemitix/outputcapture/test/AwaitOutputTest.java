@@ -0,0 +1,118 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutputLine;
+import net.kemitix.outputcapture.OngoingCapturedOutput;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AwaitOutputTest extends AbstractCaptureTest {
+
+    private static final long MAX_AWAIT = 5000L;
+    private static final Duration WAIT = Duration.ofMillis(MAX_AWAIT);
+    private static final Duration SHORT_WAIT = Duration.ofMillis(50);
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    public void lineWrittenLaterIsAwaited() throws InterruptedException {
+        //given
+        final CountDownLatch go = new CountDownLatch(1);
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(() -> {
+            System.out.println(line1);
+            go.await();
+            System.err.println(line2);
+            release.await();
+        }, MAX_AWAIT);
+        //when
+        new Thread(go::countDown).start();
+        final Optional<CapturedOutputLine> line = ongoing.awaitLine(l -> l.asString().equals(line2), WAIT);
+        //then
+        assertThat(line.map(CapturedOutputLine::asString)).contains(line2);
+        assertThat(line.map(CapturedOutputLine::isErr)).contains(true);
+        release.countDown();
+        ongoing.join();
+    }
+
+    @Test
+    public void awaitedLineIsTheCapturedLine() throws InterruptedException {
+        //given
+        final CountDownLatch go = new CountDownLatch(1);
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(() -> {
+            go.await();
+            System.out.println(line1);
+        }, MAX_AWAIT);
+        //when
+        new Thread(go::countDown).start();
+        final Optional<CapturedOutputLine> line = ongoing.awaitLine(l -> l.asString().equals(line1), WAIT);
+        //then
+        ongoing.join();
+        assertThat(line.map(CapturedOutputLine::sequence))
+                .isEqualTo(ongoing.stream().findFirst().map(CapturedOutputLine::sequence));
+    }
+
+    @Test
+    public void lineAlreadyCapturedIsReturned() {
+        //given
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(() -> {
+            System.out.println(line1);
+            release.await();
+        }, MAX_AWAIT);
+        ongoing.awaitBytes(line1.length(), WAIT);
+        //when
+        final Optional<CapturedOutputLine> line = ongoing.awaitLine(l -> l.asString().equals(line1), WAIT);
+        //then
+        assertThat(line.map(CapturedOutputLine::asString)).contains(line1);
+        release.countDown();
+        ongoing.join();
+    }
+
+    @Test
+    public void awaitLineTimesOut() {
+        //given
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(release::await, MAX_AWAIT);
+        //when
+        final Optional<CapturedOutputLine> line = ongoing.awaitLine(l -> true, SHORT_WAIT);
+        //then
+        assertThat(line).isEmpty();
+        release.countDown();
+        ongoing.join();
+    }
+
+    @Test
+    public void awaitLineEndsWhenCaptureCompletes() {
+        //given
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(() -> System.out.println(line1), MAX_AWAIT);
+        //when
+        final Optional<CapturedOutputLine> line = ongoing.awaitLine(l -> l.asString().equals(line2), WAIT);
+        //then
+        assertThat(line).isEmpty();
+    }
+
+    @Test
+    public void bytesAreAwaited() {
+        //given
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(() -> {
+            System.out.print(line1);
+            System.err.print(line2);
+            release.await();
+        }, MAX_AWAIT);
+        //when
+        final boolean captured = ongoing.awaitBytes(line1.length() + line2.length(), WAIT);
+        //then
+        assertThat(captured).isTrue();
+        assertThat(ongoing.awaitBytes(Long.MAX_VALUE, SHORT_WAIT)).isFalse();
+        release.countDown();
+        ongoing.join();
+    }
+}
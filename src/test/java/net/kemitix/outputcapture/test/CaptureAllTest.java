@@ -0,0 +1,87 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.OutputCaptureException;
+import net.kemitix.outputcapture.ThrowingCallable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+public class CaptureAllTest extends AbstractCaptureTest {
+
+    private static final int TASKS = 200;
+    private static final int PARALLELISM = 4;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Test
+    public void capturesEachCallableInInputOrder() {
+        //given
+        final List<ThrowingCallable> callables = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            final String line = "task " + i;
+            callables.add(() -> {
+                System.out.println(line);
+                System.err.println(line);
+            });
+        }
+        //when
+        final List<CapturedOutput> results = CaptureOutput.captureAll(callables, PARALLELISM);
+        //then
+        assertThat(results).hasSize(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            assertThat(results.get(i).getStdOut()).containsExactly("task " + i);
+            assertThat(results.get(i).getStdErr()).containsExactly("task " + i);
+        }
+        assertThat(CaptureOutput.activeCount()).isZero();
+    }
+
+    @Test
+    public void failureCarriesOutputOfFirstFailedCallable() {
+        //given
+        final List<ThrowingCallable> callables = Arrays.asList(
+                () -> System.out.println(line1),
+                () -> {
+                    System.out.println(line2);
+                    throw new IllegalStateException("first");
+                },
+                () -> {
+                    throw new IllegalStateException("second");
+                });
+        //when
+        final OutputCaptureException exception = catchThrowableOfType(
+                () -> CaptureOutput.captureAll(callables, PARALLELISM), OutputCaptureException.class);
+        //then
+        assertThat(exception).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(exception.getCause()).hasMessage("first");
+        assertThat(exception.getSuppressed()).extracting("message").containsExactly("second");
+        assertThat(exception.getCapturedOutput().get().getStdOut()).containsExactly(line2);
+    }
+
+    @Test
+    public void retainOnFailureKeepsOnlyFailedOutput() {
+        //given
+        final List<ThrowingCallable> callables = Arrays.asList(
+                () -> System.out.println(line1),
+                () -> {
+                    System.out.println(line2);
+                    throw new IllegalStateException("failed");
+                });
+        final CaptureOptions options = CaptureOptions.defaults().withRetainOnFailure(true);
+        //when
+        final OutputCaptureException exception = catchThrowableOfType(
+                () -> CaptureOutput.captureAll(callables, PARALLELISM, options), OutputCaptureException.class);
+        //then
+        assertThat(exception.getCapturedOutput().get().getStdOut()).containsExactly(line2);
+    }
+}
@@ -0,0 +1,110 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureArchive;
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.CapturedOutputLine;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CaptureArchiveTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CaptureOptions options = CaptureOptions.defaults()
+            .withCharset(StandardCharsets.UTF_8)
+            .withLineSeparator("\n");
+
+    @Test
+    public void archivedOutputIsReadBack() throws IOException {
+        //given
+        final Path file = folder.newFile().toPath();
+        final CapturedOutput captured = CaptureOutput.of(this::writeLines, options);
+        //when
+        CaptureArchive.write(captured, options, Collections.singletonMap("build", "42"), file);
+        //then
+        try (CaptureArchive archive = CaptureArchive.open(file)) {
+            assertThat(archive.lineCount()).isEqualTo(3);
+            assertThat(archive.getMetadata())
+                    .containsEntry("build", "42")
+                    .containsEntry(CaptureArchive.CHARSET, "UTF-8")
+                    .containsEntry(CaptureArchive.LINE_SEPARATOR, "\n");
+            assertThat(archive.stream().map(CapturedOutputLine::asString)).containsExactly(line1, line2, line2);
+            assertThat(archive.stream().map(CapturedOutputLine::isOut)).containsExactly(true, false, true);
+            assertThat(archive.getStdOut()).containsExactly(line1, line2);
+            assertThat(archive.getStdErr()).containsExactly(line2);
+            assertThat(archive.line(1).asString()).isEqualTo(line2);
+            assertThat(archive.out().toByteArray()).isEqualTo(captured.out().toByteArray());
+        }
+    }
+
+    @Test
+    public void timestampsAreArchived() throws IOException {
+        //given
+        final Path file = folder.newFile().toPath();
+        final CapturedOutput captured = CaptureOutput.of(this::writeLines, options.withTimestamps(true));
+        //when
+        CaptureArchive.write(captured, options, Collections.emptyMap(), file);
+        //then
+        try (CaptureArchive archive = CaptureArchive.open(file)) {
+            assertThat(archive.stream().map(CapturedOutputLine::timestamp))
+                    .containsExactlyElementsOf(captured.timeline().map(CapturedOutputLine::timestamp)::iterator);
+            assertThat(archive.line(0).timestamp()).isPresent();
+        }
+    }
+
+    @Test
+    public void finalLineWithoutSeparatorIsArchived() throws IOException {
+        //given
+        final Path file = folder.newFile().toPath();
+        final CapturedOutput captured = CaptureOutput.of(() -> System.out.print(line1 + "\n" + line2), options);
+        //when
+        CaptureArchive.write(captured, options, Collections.emptyMap(), file);
+        //then
+        try (CaptureArchive archive = CaptureArchive.open(file)) {
+            assertThat(archive.getStdOut()).containsExactly(line1, line2);
+        }
+    }
+
+    @Test
+    public void reservedMetadataKeysAreRejected() throws IOException {
+        //given
+        final Path file = folder.newFile().toPath();
+        final CapturedOutput captured = CaptureOutput.of(this::writeLines, options);
+        //then
+        assertThatThrownBy(() -> CaptureArchive.write(captured, options,
+                Collections.singletonMap(CaptureArchive.CHARSET, "US-ASCII"), file))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws IOException {
+        //given
+        final Path file = folder.newFile().toPath();
+        Files.write(file, new byte[]{1, 2, 3});
+        //then
+        assertThatThrownBy(() -> CaptureArchive.open(file)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void writeLines() {
+        System.out.print(line1 + "\n");
+        System.err.print(line2 + "\n");
+        System.out.print(line2 + "\n");
+    }
+}
@@ -0,0 +1,111 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureCache;
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.CapturedOutputLine;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaptureCacheTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void cachedOutputIsReturnedWithoutRunningCallable() {
+        //given
+        final CaptureCache cache = CaptureCache.ofMaxBytes(1024);
+        final CapturedOutput first = cache.capture("key", this::writeLines);
+        //when
+        final CapturedOutput second = cache.capture("key", this::writeLines);
+        //then
+        assertThat(calls).hasValue(1);
+        assertThat(second.getStdOut()).containsExactly(line1, line2);
+        assertThat(second.getStdErr()).containsExactly(line2);
+        assertThat(second.stream().map(CapturedOutputLine::asString).collect(Collectors.toList()))
+                .isEqualTo(first.stream().map(CapturedOutputLine::asString).collect(Collectors.toList()));
+        assertThat(second.timeline().mapToLong(CapturedOutputLine::sequence).toArray())
+                .isEqualTo(first.timeline().mapToLong(CapturedOutputLine::sequence).toArray());
+    }
+
+    @Test
+    public void finalLineWithoutSeparatorIsCached() {
+        //given
+        final CaptureCache cache = CaptureCache.ofMaxBytes(1024);
+        final String output = line1 + System.lineSeparator() + line2;
+        cache.capture("key", () -> System.out.print(output));
+        //when
+        final CapturedOutput cached = cache.capture("key", () -> System.out.print(output));
+        //then
+        assertThat(cached.stream().map(CapturedOutputLine::asString)).containsExactly(line1, line2);
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        //given
+        final CaptureCache cache = CaptureCache.ofMaxBytes(400);
+        cache.capture("a", this::writeLines);
+        cache.capture("b", this::writeLines);
+        //when
+        cache.get("a");
+        cache.capture("c", this::writeLines);
+        //then
+        assertThat(cache.get("a")).isPresent();
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("c")).isPresent();
+    }
+
+    @Test
+    public void invalidatedKeyIsCapturedAgain() {
+        //given
+        final CaptureCache cache = CaptureCache.ofMaxBytes(1024);
+        cache.capture("key", this::writeLines);
+        //when
+        cache.invalidate("key");
+        cache.capture("key", this::writeLines);
+        //then
+        assertThat(calls).hasValue(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void sampledOutCaptureIsNotCached() {
+        //given
+        final CaptureCache cache = CaptureCache.ofMaxBytes(1024);
+        final AtomicInteger samples = new AtomicInteger();
+        final CaptureOptions options = CaptureOptions.defaults().withSampler(key -> samples.getAndIncrement() > 0);
+        final CapturedOutput first = cache.capture("key", this::writeLines, options);
+        //when
+        final CapturedOutput second = cache.capture("key", this::writeLines, options);
+        //then
+        assertThat(first.getStdOut()).isEmpty();
+        assertThat(second.getStdOut()).containsExactly(line1, line2);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    public void successfulRetainOnFailureCaptureIsNotCached() {
+        //given
+        final CaptureCache cache = CaptureCache.ofMaxBytes(1024);
+        //when
+        cache.capture("key", this::writeLines, CaptureOptions.defaults().withRetainOnFailure(true));
+        //then
+        assertThat(cache.get("key")).isEmpty();
+    }
+
+    private void writeLines() {
+        calls.incrementAndGet();
+        System.out.println(line1);
+        System.err.println(line2);
+        System.out.println(line2);
+    }
+}
@@ -0,0 +1,90 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturePool;
+import net.kemitix.outputcapture.CapturedOutput;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CapturePoolTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Test
+    public void closedCaptureBuffersAreReused() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults().withCapturePool(CapturePool.threadLocal(2));
+        final CapturedOutput first = CaptureOutput.of(() -> System.out.println(line1), options);
+        final ByteArrayOutputStream buffer = first.out();
+        assertThat(first.getStdOut()).containsExactly(line1);
+        //when
+        first.close();
+        final CapturedOutput second = CaptureOutput.of(() -> System.out.println(line2), options);
+        //then
+        assertThat(second.out()).isSameAs(buffer);
+        assertThat(second.getStdOut()).containsExactly(line2);
+        assertThat(second.stream()).extracting("string").containsExactly(line2);
+    }
+
+    @Test
+    public void closingTwiceReturnsBuffersOnce() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults().withCapturePool(CapturePool.shared(2));
+        final CapturedOutput first = CaptureOutput.of(() -> System.out.println(line1), options);
+        //when
+        first.close();
+        first.close();
+        final CapturedOutput second = CaptureOutput.of(() -> System.out.println(line1), options);
+        final CapturedOutput third = CaptureOutput.of(() -> System.out.println(line2), options);
+        //then
+        assertThat(second.out()).isNotSameAs(third.out());
+    }
+
+    @Test
+    public void unpooledBuffersAreNotReused() {
+        //given
+        final CapturedOutput first = CaptureOutput.of(() -> System.out.println(line1));
+        //when
+        first.close();
+        final CapturedOutput second = CaptureOutput.of(() -> System.out.println(line2));
+        //then
+        assertThat(second.out()).isNotSameAs(first.out());
+    }
+
+    @Test
+    public void storesCreatedWithOtherOptionsAreNotReused() {
+        //given
+        final CapturePool pool = CapturePool.shared(2);
+        final CapturedOutput first = CaptureOutput.of(() -> System.out.println(line1),
+                CaptureOptions.defaults().withCapturePool(pool));
+        first.close();
+        //when
+        final CapturedOutput second = CaptureOutput.of(() -> System.out.println(line2),
+                CaptureOptions.defaults().withCapturePool(pool).withTimestamps(true));
+        //then
+        assertThat(second.out()).isNotSameAs(first.out());
+        assertThat(second.stream().findFirst().get().timestamp()).isPresent();
+    }
+
+    @Test
+    public void storesThatDoNotFitAreKeptForLaterCaptures() {
+        //given
+        final CapturePool pool = CapturePool.shared(2);
+        final CaptureOptions options = CaptureOptions.defaults().withCapturePool(pool);
+        final CapturedOutput first = CaptureOutput.of(() -> System.out.println(line1), options);
+        final ByteArrayOutputStream buffer = first.out();
+        first.close();
+        CaptureOutput.of(() -> System.out.println(line2), options.withTimestamps(true));
+        //when
+        final CapturedOutput third = CaptureOutput.of(() -> System.out.println(line2), options);
+        //then
+        assertThat(third.out()).isSameAs(buffer);
+    }
+}
@@ -0,0 +1,82 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CaptureScope;
+import net.kemitix.outputcapture.CapturedOutput;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaptureScopeTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Test
+    public void capturesUntilClosed() {
+        //given
+        final CapturedOutput captured;
+        //when
+        try (CaptureScope scope = CaptureScope.open()) {
+            System.out.println(line1);
+            System.err.println(line2);
+            captured = scope.getCapturedOutput();
+        }
+        //then
+        assertThat(captured.getStdOut()).containsExactly(line1);
+        assertThat(captured.getStdErr()).containsExactly(line2);
+        assertThat(CaptureOutput.activeCount()).isZero();
+    }
+
+    @Test
+    public void suspendedScopeDoesNotCapture() {
+        //given
+        final CapturedOutput outer = CaptureOutput.of(() -> {
+            try (CaptureScope scope = CaptureScope.open()) {
+                System.out.println(line1);
+                //when
+                scope.suspend();
+                System.out.println(line2);
+                scope.resume();
+                System.out.println(line1);
+                //then
+                assertThat(scope.isSuspended()).isFalse();
+                assertThat(scope.getCapturedOutput().getStdOut()).containsExactly(line1, line1);
+            }
+        });
+        assertThat(outer.getStdOut()).containsExactly(line2);
+    }
+
+    @Test
+    public void closingWhileSuspendedRemovesScope() {
+        //given
+        final CaptureScope scope = CaptureScope.open();
+        scope.suspend();
+        //when
+        scope.close();
+        scope.resume();
+        //then
+        assertThat(scope.isSuspended()).isTrue();
+        assertThat(CaptureOutput.activeCount()).isZero();
+    }
+
+    @Test
+    public void failedScopeRetainsOutput() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults().withRetainOnFailure(true);
+        final CaptureScope succeeded = CaptureScope.open(options);
+        System.out.println(line1);
+        succeeded.close();
+        //when
+        final CaptureScope failed = CaptureScope.open(options);
+        System.out.println(line2);
+        failed.markFailed();
+        failed.close();
+        //then
+        assertThat(succeeded.getCapturedOutput().getStdOut()).isEmpty();
+        assertThat(failed.getCapturedOutput().getStdOut()).containsExactly(line2);
+    }
+}
@@ -0,0 +1,115 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CaptureSink;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.OngoingCapturedOutput;
+import net.kemitix.outputcapture.OutputCaptureException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+public class CaptureSinkTest extends AbstractCaptureTest {
+
+    private static final int LINES = 1000;
+    private static final long MAX_AWAIT = 1000L;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void outputIsStreamedToFileInsteadOfHeld() throws IOException {
+        //given
+        final Path file = folder.getRoot().toPath().resolve("capture.log");
+        final CapturedOutput captured;
+        //when
+        try (CaptureSink sink = CaptureSink.fileChannel(file)) {
+            captured = CaptureOutput.of(() -> {
+                System.out.println(line1);
+                System.err.println(line2);
+            }, CaptureOptions.defaults().withCharset(StandardCharsets.UTF_8).withLineSeparator("\n").withSink(sink));
+        }
+        //then
+        assertThat(captured.getStdOut()).isEmpty();
+        assertThat(captured.getStdErr()).isEmpty();
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+                .contains(line1 + "\n")
+                .contains(line2 + "\n");
+    }
+
+    @Test
+    public void ongoingOutputIsSplitBetweenSinks() throws IOException {
+        //given
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final CaptureSink sink = CaptureSink.split(
+                CaptureSink.channel(Channels.newChannel(out)),
+                CaptureSink.channel(Channels.newChannel(err)));
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            expected.append(line1).append('\n');
+        }
+        //when
+        final OngoingCapturedOutput ongoing = CaptureOutput.whileDoing(() -> {
+            for (int i = 0; i < LINES; i++) {
+                System.out.print(line1 + "\n");
+            }
+            System.err.print(line2 + "\n");
+        }, MAX_AWAIT, CaptureOptions.defaults().withCharset(StandardCharsets.UTF_8).withSink(sink));
+        ongoing.join();
+        sink.close();
+        //then
+        assertThat(ongoing.getStdOut()).isEmpty();
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+        assertThat(new String(err.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(line2 + "\n");
+    }
+
+    @Test
+    public void sinkFailureIsSuppressedByCallableFailure() {
+        //given
+        final CaptureSink sink = (source, bytes) -> {
+            throw new IOException("sink");
+        };
+        //when
+        final OutputCaptureException exception = catchThrowableOfType(() -> CaptureOutput.of(() -> {
+            System.out.println(line1);
+            throw new IllegalStateException("callable");
+        }, CaptureOptions.defaults().withSink(sink)), OutputCaptureException.class);
+        //then
+        assertThat(exception.getCause()).hasMessage("callable");
+        assertThat(exception.getSuppressed()).hasSize(1);
+        assertThat(exception.getSuppressed()[0].getCause()).hasMessage("sink");
+    }
+
+    @Test
+    public void ongoingSinkFailureIsReported() {
+        //given
+        final CaptureSink sink = (source, bytes) -> {
+            throw new IOException("sink");
+        };
+        //when
+        final OngoingCapturedOutput ongoing = CaptureOutput.whileDoing(() -> System.out.println(line1),
+                MAX_AWAIT, CaptureOptions.defaults().withSink(sink));
+        ongoing.join();
+        //then
+        assertThat(ongoing.thrownException()).hasValueSatisfying(e -> {
+            assertThat(e).isInstanceOf(OutputCaptureException.class);
+            assertThat(e.getCause()).hasMessage("sink");
+        });
+    }
+}
@@ -1,11 +1,13 @@
 package net.kemitix.outputcapture.test;
 
 import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
 import net.kemitix.outputcapture.CapturedOutputLine;
 import net.kemitix.outputcapture.ThrowingCallable;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -69,6 +71,36 @@ public class CaptureStreamTest {
         assertThat(lines).containsExactly(line1Err, line2Err);
     }
 
+    @Test
+    public void timelineInterleavesOutAndErr() {
+        //when
+        final List<String> lines =
+                CaptureOutput.of(writeOutput())
+                        .timeline()
+                        .map(CapturedOutputLine::asString)
+                        .collect(Collectors.toList());
+        //then
+        assertThat(lines).containsExactly(line1Out, line1Err, line2Out, line2Err);
+    }
+
+    @Test
+    public void timelineMergesNestedCaptures() {
+        //given
+        final AtomicReference<CapturedOutput> inner = new AtomicReference<>();
+        //when
+        final CapturedOutput outer = CaptureOutput.ofAll(() -> {
+            System.out.println(line1Out);
+            inner.set(CaptureOutput.copyOf(() -> System.err.println(line1Err)));
+            System.out.println(line2Out);
+        });
+        final List<String> lines =
+                CapturedOutput.timeline(outer, inner.get())
+                        .map(CapturedOutputLine::asString)
+                        .collect(Collectors.toList());
+        //then
+        assertThat(lines).containsExactly(line1Out, line1Err, line1Err, line2Out);
+    }
+
     private ThrowingCallable writeOutput() {
         return () -> {
             System.out.println(line1Out);
@@ -0,0 +1,88 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.CapturedOutputLine;
+import net.kemitix.outputcapture.ThrowingCallable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompressedCaptureTest extends AbstractCaptureTest {
+
+    private static final int SEGMENT_BYTES = 64;
+    private static final int LINES = 100;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    private final CaptureOptions options = CaptureOptions.defaults()
+            .withCharset(StandardCharsets.UTF_8)
+            .withLineSeparator("\n")
+            .withCompressedSegmentBytes(SEGMENT_BYTES);
+
+    @Test
+    public void linesAreReadFromCompressedSegments() {
+        //given
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            expected.add(line1 + i);
+        }
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            for (int i = 0; i < LINES; i++) {
+                System.out.print(line1 + i + "\n");
+            }
+            System.err.print(line2 + "\n");
+        }, options);
+        //then
+        assertThat(captured.getStdOut()).containsExactlyElementsOf(expected);
+        assertThat(captured.getStdErr()).containsExactly(line2);
+        assertThat(captured.stream().skip(LINES).map(CapturedOutputLine::isErr)).containsExactly(true);
+    }
+
+    @Test
+    public void interleavedLinesKeepTheirOrder() {
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            System.out.print(line1 + "\n");
+            System.err.print(line2 + "\n");
+            System.out.print(line2 + "\n");
+        }, options);
+        //then
+        assertThat(captured.stream().map(CapturedOutputLine::asString)).containsExactly(line1, line2, line2);
+        assertThat(captured.stream().map(CapturedOutputLine::isOut)).containsExactly(true, false, true);
+    }
+
+    @Test
+    public void textIsSplitAsForUncompressedCapture() {
+        //given
+        final String output = line1 + "\n\n" + line2 + "\n" + line1 + "\n\n";
+        final ThrowingCallable callable = () -> System.out.print(output + line2);
+        //when
+        final CapturedOutput compressed = CaptureOutput.of(callable, options);
+        //then
+        final CapturedOutput uncompressed = CaptureOutput.of(callable, options.withCompressedSegmentBytes(0));
+        assertThat(compressed.getStdOut()).containsExactlyElementsOf(uncompressed.getStdOut()::iterator);
+        assertThat(compressed.getStdOut()).containsExactly(line1, "", line2, line1, "", line2);
+        assertThat(compressed.getStdErr()).isEmpty();
+    }
+
+    @Test
+    public void compressedOutputDecodesWithCharset() throws Exception {
+        //given
+        final String output = line1 + "\n" + line2 + "\n" + line1 + "\n";
+        final CapturedOutput captured = CaptureOutput.of(() -> System.out.print(output), options);
+        //when
+        final String text = toStringWithCharset(captured.out(), StandardCharsets.UTF_8);
+        //then
+        assertThat(text).isEqualTo(output);
+    }
+}
@@ -0,0 +1,93 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureContext;
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ContextPropagationTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    private final CaptureOptions propagating = CaptureOptions.defaults().withContextPropagation(true);
+
+    @Test
+    public void capturesChildThreadWhenPropagating() {
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> runInChildThread(line1), propagating);
+        //then
+        assertThat(captured.getStdOut()).containsExactly(line1);
+    }
+
+    @Test
+    public void ignoresChildThreadByDefault() {
+        //when
+        final CapturedOutput captured = CaptureOutput.ofAll(() -> {
+            final CapturedOutput inner = CaptureOutput.copyOf(() -> runInChildThread(line1));
+            assertThat(inner.getStdOut()).isEmpty();
+        });
+        //then
+        assertThat(captured.getStdOut()).containsExactly(line1);
+    }
+
+    @Test
+    public void capturesWrappedExecutorTasks() {
+        //given
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        pool.submit(this::doNothing);
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            final ExecutorService wrapped = CaptureContext.wrap(pool);
+            wrapped.submit(() -> System.out.println(line1)).get();
+            pool.submit(() -> System.out.println(line2)).get();
+        }, propagating);
+        pool.shutdown();
+        //then
+        assertThat(captured.getStdOut()).containsExactly(line1);
+    }
+
+    @Test
+    public void capturesParallelStreamInContextForkJoinPool() {
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            final ForkJoinPool pool = CaptureContext.newForkJoinPool(2);
+            pool.submit(() -> Arrays.asList(line1, line2).parallelStream().forEach(System.out::println)).get();
+            pool.shutdown();
+        }, propagating);
+        //then
+        assertThat(captured.getStdOut()).containsExactlyInAnyOrder(line1, line2);
+    }
+
+    @Test
+    public void innerCaptureWithoutPropagationLeavesWrappedTasksToOuterCapture() {
+        //given
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        pool.submit(this::doNothing);
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            final CapturedOutput inner = CaptureOutput.copyOf(() ->
+                    CaptureContext.wrap(pool).submit(() -> System.out.println(line1)).get());
+            assertThat(inner.getStdOut()).isEmpty();
+        }, propagating);
+        pool.shutdown();
+        //then
+        assertThat(captured.getStdOut()).containsExactly(line1);
+    }
+
+    private void runInChildThread(final String line) throws InterruptedException {
+        final Thread thread = new Thread(() -> System.out.println(line));
+        thread.start();
+        thread.join();
+    }
+}
@@ -0,0 +1,95 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.CopyThrough;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CopyThroughTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    private final PrintStream originalOut = System.out;
+
+    @After
+    public void restoreOut() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void copiedOutputIsWrittenByBackgroundThread() {
+        //given
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(console));
+        try (CopyThrough copyThrough = CopyThrough.async(16, CopyThrough.Overflow.BLOCK)) {
+            //when
+            final CapturedOutput captured = CaptureOutput.copyOf(
+                    () -> System.out.println(line1),
+                    CaptureOptions.defaults().withCopyThrough(copyThrough));
+            //then
+            assertThat(captured.getStdOut()).containsExactly(line1);
+            assertThat(console.toString()).isEqualTo(line1 + System.lineSeparator());
+            assertThat(copyThrough.getDropped()).isZero();
+        }
+    }
+
+    @Test
+    public void redirectedOutputIsNotCopied() {
+        //given
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(console));
+        try (CopyThrough copyThrough = CopyThrough.async(16, CopyThrough.Overflow.BLOCK)) {
+            //when
+            CaptureOutput.of(() -> System.out.println(line1), CaptureOptions.defaults().withCopyThrough(copyThrough));
+            //then
+            assertThat(console.size()).isZero();
+        }
+    }
+
+    @Test
+    public void copyInsideRedirectIsNotCopied() {
+        //given
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(console));
+        try (CopyThrough copyThrough = CopyThrough.async(16, CopyThrough.Overflow.BLOCK)) {
+            //when
+            final CapturedOutput outer = CaptureOutput.of(() -> {
+                final CapturedOutput inner = CaptureOutput.copyOf(() -> System.out.println(line1),
+                        CaptureOptions.defaults().withCopyThrough(copyThrough));
+                assertThat(inner.getStdOut()).containsExactly(line1);
+            });
+            //then
+            assertThat(outer.getStdOut()).containsExactly(line1);
+            assertThat(console.size()).isZero();
+        }
+    }
+
+    @Test
+    public void repeatedLinesAreCollapsedButStillCaptured() {
+        //given
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(console));
+        try (CopyThrough copyThrough = CopyThrough.direct().withDeduplication()) {
+            //when
+            final CapturedOutput captured = CaptureOutput.copyOf(() -> {
+                System.out.println(line1);
+                System.out.println(line1);
+                System.out.println(line1);
+            }, CaptureOptions.defaults().withCopyThrough(copyThrough));
+            //then
+            assertThat(captured.getStdOut()).containsExactly(line1, line1, line1);
+            assertThat(console.toString()).isEqualTo(
+                    line1 + System.lineSeparator() + "... repeated 2 times" + System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.CapturedOutputLine;
+import net.kemitix.outputcapture.DiskCaptureCache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DiskCaptureCacheTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void cachedOutputIsReadByAnotherCacheInstance() throws IOException {
+        //given
+        final Path directory = folder.newFolder().toPath();
+        DiskCaptureCache.open(directory, 1024).capture("key", "v1", this::writeLines);
+        //when
+        final CapturedOutput cached = DiskCaptureCache.open(directory, 1024).capture("key", "v1", this::writeLines);
+        //then
+        assertThat(calls).hasValue(1);
+        assertThat(cached.getStdOut()).containsExactly(line1, line2);
+        assertThat(cached.getStdErr()).containsExactly(line2);
+        assertThat(cached.stream().map(CapturedOutputLine::asString)).containsExactly(line1, line2, line2);
+        assertThat(cached.stream().map(CapturedOutputLine::isOut)).containsExactly(true, false, true);
+    }
+
+    @Test
+    public void changedFingerprintMissesCache() throws IOException {
+        //given
+        final DiskCaptureCache cache = DiskCaptureCache.open(folder.newFolder().toPath(), 1024);
+        cache.capture("key", "v1", this::writeLines);
+        //when
+        cache.capture("key", "v2", this::writeLines);
+        //then
+        assertThat(calls).hasValue(2);
+        assertThat(cache.get("key", "v1")).isPresent();
+    }
+
+    @Test
+    public void corruptSegmentIsTreatedAsMissing() throws IOException {
+        //given
+        final Path directory = folder.newFolder().toPath();
+        final DiskCaptureCache cache = DiskCaptureCache.open(directory, 1024);
+        cache.capture("key", "v1", this::writeLines);
+        try (Stream<Path> segments = Files.list(directory)) {
+            final Path segment = segments.findFirst().get();
+            Files.write(segment, new byte[]{1, 2, 3});
+        }
+        //then
+        assertThat(cache.get("key", "v1")).isEmpty();
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments).isEmpty();
+        }
+    }
+
+    @Test
+    public void segmentsBeyondMaxSizeAreEvicted() throws IOException {
+        //given
+        final Path directory = folder.newFolder().toPath();
+        final DiskCaptureCache cache = DiskCaptureCache.open(directory, 1);
+        //when
+        cache.capture("key", "v1", this::writeLines);
+        //then
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments).isEmpty();
+        }
+    }
+
+    @Test
+    public void staleTemporaryFilesAreDeleted() throws IOException {
+        //given
+        final Path directory = folder.newFolder().toPath();
+        final DiskCaptureCache cache = DiskCaptureCache.open(directory, 1024);
+        final Path stale = Files.createFile(directory.resolve("abandoned.capture123.tmp"));
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(0));
+        final Path recent = Files.createFile(directory.resolve("writing.capture456.tmp"));
+        //when
+        cache.capture("key", "v1", this::writeLines);
+        //then
+        assertThat(stale).doesNotExist();
+        assertThat(recent).exists();
+    }
+
+    @Test
+    public void sampledOutCaptureIsNotWritten() throws IOException {
+        //given
+        final Path directory = folder.newFolder().toPath();
+        final DiskCaptureCache cache = DiskCaptureCache.open(directory, 1024);
+        final CaptureOptions options = CaptureOptions.defaults().withSampler(key -> false);
+        //when
+        cache.capture("key", "v1", this::writeLines, options);
+        //then
+        assertThat(cache.get("key", "v1")).isEmpty();
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments).isEmpty();
+        }
+    }
+
+    private void writeLines() {
+        calls.incrementAndGet();
+        System.out.println(line1);
+        System.err.println(line2);
+        System.out.println(line2);
+    }
+}
@@ -0,0 +1,87 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.FlightRecorder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightRecorderTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Test
+    public void keepsRecentOutputOfEachThread() throws InterruptedException {
+        //given
+        try (FlightRecorder recorder = FlightRecorder.start(1024)) {
+            final Thread other = new Thread(() -> System.err.println(line2));
+            //when
+            System.out.println(line1);
+            other.start();
+            other.join();
+            //then
+            assertThat(recorder.snapshot(Thread.currentThread()).get().getStdOut()).containsExactly(line1);
+            assertThat(recorder.snapshot(other).get().getStdErr()).containsExactly(line2);
+            assertThat(recorder.snapshotAll()).containsKeys(Thread.currentThread(), other);
+        }
+    }
+
+    @Test
+    public void keepsOnlyTheMostRecentBytes() {
+        //given
+        try (FlightRecorder recorder = FlightRecorder.start(64)) {
+            //when
+            for (int i = 0; i < 100; i++) {
+                System.out.println("line " + i);
+            }
+            //then
+            assertThat(recorder.snapshot(Thread.currentThread()).get().getStdOut())
+                    .hasSizeLessThan(10)
+                    .endsWith("line 99");
+        }
+    }
+
+    @Test
+    public void passesOutputOfFailedThreadToHandler() throws InterruptedException {
+        //given
+        final AtomicReference<CapturedOutput> reported = new AtomicReference<>();
+        try (FlightRecorder recorder = FlightRecorder.start(1024)) {
+            final Thread failing = new Thread(() -> {
+                System.out.println(line1);
+                throw new IllegalStateException();
+            });
+            failing.setUncaughtExceptionHandler(
+                    recorder.uncaughtExceptionHandler((throwable, output) -> reported.set(output)));
+            //when
+            failing.start();
+            failing.join();
+        }
+        //then
+        assertThat(reported.get().getStdOut()).containsExactly(line1);
+    }
+
+    @Test
+    public void closeReleasesRecordingsOfPoolThreads() throws Exception {
+        //given
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final FlightRecorder recorder = FlightRecorder.start(1024);
+        final Thread worker = pool.submit(() -> {
+            System.out.println(line1);
+            return Thread.currentThread();
+        }).get();
+        assertThat(recorder.snapshot(worker)).isPresent();
+        //when
+        recorder.close();
+        //then
+        assertThat(recorder.snapshot(worker)).isEmpty();
+        assertThat(recorder.snapshotAll()).isEmpty();
+        pool.shutdown();
+    }
+}
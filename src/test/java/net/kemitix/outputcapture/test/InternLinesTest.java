@@ -0,0 +1,68 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.CapturedOutputLine;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class InternLinesTest extends AbstractCaptureTest {
+
+    private static final int REPEATS = 500;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    private final CaptureOptions options = CaptureOptions.defaults()
+            .withCharset(StandardCharsets.UTF_8)
+            .withLineSeparator("\n")
+            .withInternLines(true);
+
+    @Test
+    public void repeatedLinesAreCounted() {
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            for (int i = 0; i < REPEATS; i++) {
+                System.out.print(line1 + "\n");
+                System.err.print(line2 + "\n");
+            }
+            System.out.print(line2 + "\n");
+        }, options);
+        //then
+        assertThat(captured.lineCounts()).containsExactly(
+                entry(line1, (long) REPEATS),
+                entry(line2, (long) REPEATS + 1));
+    }
+
+    @Test
+    public void linesAreViewedInCaptureOrder() {
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            System.out.print(line1 + "\n");
+            System.err.print(line2 + "\n");
+            System.out.print(line1 + "\n");
+        }, options);
+        //then
+        assertThat(captured.stream().map(CapturedOutputLine::asString)).containsExactly(line1, line2, line1);
+        assertThat(captured.stream().map(CapturedOutputLine::isOut)).containsExactly(true, false, true);
+        assertThat(captured.getStdOut()).containsExactly(line1, line1);
+    }
+
+    @Test
+    public void countsAreAvailableWithoutInterning() {
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            System.out.println(line1);
+            System.out.println(line1);
+        });
+        //then
+        assertThat(captured.lineCounts()).containsExactly(entry(line1, 2L));
+    }
+}
@@ -0,0 +1,100 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.KeyedCaptureOutput;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyedCaptureOutputTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Test
+    public void capturesEachKeySeparatelyAcrossThreads() throws Exception {
+        //given
+        final ExecutorService first = Executors.newSingleThreadExecutor();
+        final ExecutorService second = Executors.newSingleThreadExecutor();
+        //when
+        try (KeyedCaptureOutput captures = KeyedCaptureOutput.of(CaptureOptions.defaults())) {
+            first.submit(() -> writeFor(captures, "a", line1)).get();
+            second.submit(() -> writeFor(captures, "b", line2)).get();
+            second.submit(() -> writeFor(captures, "a", line2)).get();
+            //then
+            assertThat(captures.get("a").map(CapturedOutput::getStdOut).get()).containsExactly(line1, line2);
+            assertThat(captures.remove("b").map(CapturedOutput::getStdOut).get()).containsExactly(line2);
+            assertThat(captures.get("b")).isEmpty();
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    public void unboundThreadsAreNotCaptured() {
+        //when
+        final CapturedOutput captured = CaptureOutput.ofAll(() -> {
+            try (KeyedCaptureOutput captures = KeyedCaptureOutput.of(CaptureOptions.defaults())) {
+                System.out.println(line1);
+                writeFor(captures, "a", line2);
+                assertThat(captures.get("a").map(CapturedOutput::getStdOut).get()).containsExactly(line2);
+            }
+        });
+        //then
+        assertThat(captured.getStdOut()).containsExactly(line1);
+    }
+
+    @Test
+    public void closeRemovesTheCapture() {
+        //given
+        final KeyedCaptureOutput captures = KeyedCaptureOutput.copyOf(CaptureOptions.defaults());
+        assertThat(CaptureOutput.activeCount()).isEqualTo(1);
+        //when
+        captures.close();
+        //then
+        assertThat(CaptureOutput.activeCount()).isZero();
+    }
+
+    @Test
+    public void removeCompletesTheCaptureAsSuccessful() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults().withRetainOnFailure(true);
+        try (KeyedCaptureOutput captures = KeyedCaptureOutput.of(options)) {
+            writeFor(captures, "a", line1);
+            //when
+            final CapturedOutput removed = captures.remove("a").get();
+            //then
+            assertThat(removed.getStdOut()).isEmpty();
+        }
+    }
+
+    @Test
+    public void removeAsFailedRetainsTheOutput() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults().withRetainOnFailure(true);
+        try (KeyedCaptureOutput captures = KeyedCaptureOutput.of(options)) {
+            writeFor(captures, "a", line1);
+            //when
+            final CapturedOutput removed = captures.remove("a", true).get();
+            //then
+            assertThat(removed.getStdOut()).containsExactly(line1);
+        }
+    }
+
+    private void writeFor(final KeyedCaptureOutput captures, final String key, final String line) {
+        final KeyedCaptureOutput.Binding binding = captures.bind(key);
+        try {
+            System.out.println(line);
+        } finally {
+            binding.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.LineExpectations;
+import net.kemitix.outputcapture.OngoingCapturedOutput;
+import net.kemitix.outputcapture.OutputExpectationException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+public class LineExpectationsTest extends AbstractCaptureTest {
+
+    private static final long MAX_AWAIT = 5000L;
+    private static final int ENDLESS = Integer.MAX_VALUE;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    private final AtomicInteger written = new AtomicInteger();
+
+    @Test
+    public void expectedOutputCompletesNormally() {
+        //given
+        final LineExpectations expected = LineExpectations.lines(line1)
+                .withLine("a line starting 2:", line -> line.startsWith("2:"));
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            System.out.println(line1);
+            System.err.println(line1);
+            System.out.println(line2);
+        }, CaptureOptions.defaults().withExpectations(expected));
+        //then
+        assertThat(captured.getStdOut()).containsExactly(line1, line2);
+    }
+
+    @Test
+    public void divergenceInterruptsCallable() {
+        //given
+        final LineExpectations expected = LineExpectations.lines(line1, line1);
+        //when
+        final OutputExpectationException exception = catchThrowableOfType(() ->
+                        CaptureOutput.of(() -> writeUntilInterrupted(line1, line2),
+                                CaptureOptions.defaults().withExpectations(expected)),
+                OutputExpectationException.class);
+        //then
+        assertThat(exception.getLineNumber()).isEqualTo(2);
+        assertThat(exception.getExpected()).contains('"' + line1 + '"');
+        assertThat(exception.getActual()).contains(line2);
+        assertThat(exception.getCause()).isInstanceOf(InterruptedException.class);
+        assertThat(written).hasValue(2);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    @Test
+    public void unexpectedExtraLineIsReported() {
+        //given
+        final LineExpectations expected = LineExpectations.lines(line1);
+        //when
+        final OutputExpectationException exception = catchThrowableOfType(() ->
+                        CaptureOutput.of(() -> {
+                            System.out.println(line1);
+                            System.out.println(line2);
+                        }, CaptureOptions.defaults().withExpectations(expected)),
+                OutputExpectationException.class);
+        //then
+        assertThat(exception.getLineNumber()).isEqualTo(2);
+        assertThat(exception.getExpected()).isEmpty();
+        assertThat(exception.getActual()).contains(line2);
+        assertThat(exception.getCapturedOutput()).isPresent();
+    }
+
+    @Test
+    public void missingLineIsReported() {
+        //given
+        final LineExpectations expected = LineExpectations.lines(line1, line2);
+        //when
+        final OutputExpectationException exception = catchThrowableOfType(() ->
+                        CaptureOutput.of(() -> System.out.println(line1),
+                                CaptureOptions.defaults().withExpectations(expected)),
+                OutputExpectationException.class);
+        //then
+        assertThat(exception.getLineNumber()).isEqualTo(2);
+        assertThat(exception.getActual()).isEmpty();
+        assertThat(exception).hasMessageContaining("Missing line 2");
+    }
+
+    @Test
+    public void asyncCaptureIsCancelledOnDivergence() {
+        //given
+        final LineExpectations expected = LineExpectations.lines(line1).onStdErr();
+        //when
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(() -> {
+            System.out.println(line2);
+            for (int i = 0; i < ENDLESS; i++) {
+                System.err.println(line2);
+                Thread.sleep(1);
+            }
+        }, MAX_AWAIT, CaptureOptions.defaults().withExpectations(expected));
+        ongoing.join();
+        //then
+        assertThat(ongoing.thrownException()).containsInstanceOf(OutputExpectationException.class);
+        final OutputExpectationException exception = (OutputExpectationException) ongoing.thrownException().get();
+        assertThat(exception.getLineNumber()).isEqualTo(1);
+        assertThat(exception.getActual()).contains(line2);
+    }
+
+    private void writeUntilInterrupted(final String first, final String rest) throws InterruptedException {
+        System.out.println(first);
+        written.incrementAndGet();
+        for (int i = 0; i < ENDLESS; i++) {
+            System.out.println(rest);
+            written.incrementAndGet();
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.LineMatchers;
+import net.kemitix.outputcapture.OngoingCapturedOutput;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class LineMatchersTest extends AbstractCaptureTest {
+
+    private static final long MAX_AWAIT = 1000L;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    @Test
+    public void literalsAndRegexesAreCountedPerLine() {
+        //given
+        final LineMatchers matchers = LineMatchers.literals("ERROR", "WARN").withRegex("took \\d+ms");
+        //when
+        CaptureOutput.of(() -> {
+            System.out.println("INFO took 12ms");
+            System.err.println("ERROR ERROR failed");
+            System.out.println("WARN took 7ms");
+            System.out.println("INFO done");
+        }, CaptureOptions.defaults().withMatchers(matchers));
+        //then
+        assertThat(matchers.counts()).containsExactly(
+                entry("ERROR", 1L),
+                entry("WARN", 1L),
+                entry("took \\d+ms", 2L));
+        assertThat(matchers.firstMatch("took \\d+ms")).contains("INFO took 12ms");
+        assertThat(matchers.matched("WARN")).isTrue();
+    }
+
+    @Test
+    public void linesAreMatchedWithoutBeingKept() {
+        //given
+        final LineMatchers matchers = LineMatchers.literals(line1);
+        //when
+        CaptureOutput.of(() -> System.out.println(line1),
+                CaptureOptions.defaults().withMatchers(matchers).withSampler(callable -> false));
+        //then
+        assertThat(matchers.count(line1)).isEqualTo(1);
+    }
+
+    @Test
+    public void resultsAreAvailableWhileCaptureContinues() throws InterruptedException {
+        //given
+        final LineMatchers matchers = LineMatchers.literals(line1);
+        final CountDownLatch written = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        //when
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(() -> {
+            System.out.println(line1);
+            written.countDown();
+            release.await();
+        }, MAX_AWAIT, CaptureOptions.defaults().withMatchers(matchers));
+        written.await();
+        //then
+        assertThat(matchers.count(line1)).isEqualTo(1);
+        release.countDown();
+        ongoing.join();
+    }
+
+    @Test
+    public void patternsWithTheSameTextAreCountedSeparately() {
+        //given
+        final LineMatchers matchers = LineMatchers.literals("a.c").withRegex("a.c").withLiteral("a.c");
+        //when
+        CaptureOutput.of(() -> {
+            System.out.println("abc");
+            System.out.println("a.c");
+        }, CaptureOptions.defaults().withMatchers(matchers));
+        //then
+        assertThat(matchers.patterns()).containsExactly("a.c", "a.c", "a.c");
+        assertThat(matchers.count(0)).isEqualTo(1);
+        assertThat(matchers.count(1)).isEqualTo(2);
+        assertThat(matchers.firstMatch(1)).contains("abc");
+        assertThat(matchers.count(2)).isEqualTo(1);
+        assertThat(matchers.count("a.c")).isEqualTo(1);
+    }
+
+    @Test
+    public void patternsAreIdentifiedInTheOrderAdded() {
+        //given
+        final LineMatchers matchers = LineMatchers.literals(line1).withRegex("^x+$").withLiteral(line2);
+        //when
+        CaptureOutput.of(() -> System.out.println(line2), CaptureOptions.defaults().withMatchers(matchers));
+        //then
+        assertThat(matchers.patterns()).containsExactly(line1, "^x+$", line2);
+        assertThat(matchers.matched(2)).isTrue();
+        assertThat(matchers.matched(0)).isFalse();
+    }
+
+    @Test
+    public void unknownPatternIsRejected() {
+        //given
+        final LineMatchers matchers = LineMatchers.literals(line1);
+        //then
+        assertThatThrownBy(() -> matchers.count(line2)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
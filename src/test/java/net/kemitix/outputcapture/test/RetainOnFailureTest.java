@@ -0,0 +1,119 @@
+package net.kemitix.outputcapture.test;
+
+import net.kemitix.outputcapture.CaptureOptions;
+import net.kemitix.outputcapture.CaptureOutput;
+import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.CapturedOutputLine;
+import net.kemitix.outputcapture.OngoingCapturedOutput;
+import net.kemitix.outputcapture.OutputCaptureException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+public class RetainOnFailureTest extends AbstractCaptureTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(MAX_TIMEOUT);
+
+    private static final Long MAX_AWAIT = 1000L;
+
+    private final CaptureOptions options = CaptureOptions.defaults().withRetainOnFailure(true);
+
+    @Test
+    public void successfulCaptureRetainsNothing() {
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            System.out.println(line1);
+            System.err.println(line2);
+        }, options);
+        //then
+        assertThat(captured.getStdOut()).isEmpty();
+        assertThat(captured.getStdErr()).isEmpty();
+        assertThat(captured.stream()).isEmpty();
+    }
+
+    @Test
+    public void failedCaptureRetainsOutput() {
+        //when
+        final OutputCaptureException exception = catchThrowableOfType(() -> CaptureOutput.of(() -> {
+            System.out.println(line1);
+            System.err.println(line2);
+            throw new IllegalStateException("failed");
+        }, options), OutputCaptureException.class);
+        //then
+        final CapturedOutput captured = exception.getCapturedOutput().get();
+        assertThat(captured.getStdOut()).containsExactly(line1);
+        assertThat(captured.getStdErr()).containsExactly(line2);
+        assertThat(captured.stream()).extracting("string").containsExactly(line1, line2);
+    }
+
+    @Test
+    public void failedCaptureRetainsOnlyTheTail() {
+        //when
+        final OutputCaptureException exception = catchThrowableOfType(() -> CaptureOutput.of(() -> {
+            System.out.println(line1);
+            System.out.println(line2);
+            throw new IllegalStateException("failed");
+        }, options.withRetainedTailBytes((line2 + System.lineSeparator()).length())), OutputCaptureException.class);
+        //then
+        assertThat(exception.getCapturedOutput().get().getStdOut()).containsExactly(line2);
+    }
+
+    @Test
+    public void asyncCaptureReleasesOutputOnSuccess() {
+        //when
+        final OngoingCapturedOutput ongoing =
+                CaptureOutput.ofThread(() -> System.out.println(line1), MAX_AWAIT, options);
+        ongoing.join();
+        //then
+        assertThat(ongoing.getStdOut()).isEmpty();
+    }
+
+    @Test
+    public void asyncCaptureRetainsOutputOnFailure() {
+        //when
+        final OngoingCapturedOutput ongoing = CaptureOutput.ofThread(() -> {
+            System.out.println(line1);
+            throw new IllegalStateException("failed");
+        }, MAX_AWAIT, options);
+        ongoing.join();
+        //then
+        assertThat(ongoing.getStdOut()).containsExactly(line1);
+        assertThat(ongoing.thrownException()).isPresent();
+    }
+
+    @Test
+    public void retainedLinesKeepTheirSequence() {
+        //given
+        final OutputCaptureException exception = catchThrowableOfType(() -> CaptureOutput.of(() -> {
+            System.out.println(line1);
+            System.err.println(line2);
+            throw new IllegalStateException("failed");
+        }, options), OutputCaptureException.class);
+        final CapturedOutput captured = exception.getCapturedOutput().get();
+        //when
+        final Object[] first = captured.stream().map(CapturedOutputLine::sequence).toArray();
+        final Object[] second = captured.stream().map(CapturedOutputLine::sequence).toArray();
+        //then
+        assertThat(second).hasSize(2).containsExactly(first);
+    }
+
+    @Test
+    public void retainedOutputDecodesWithCharset() throws Exception {
+        //given
+        final OutputCaptureException exception = catchThrowableOfType(() -> CaptureOutput.of(() -> {
+            System.out.println(line1);
+            throw new IllegalStateException("failed");
+        }, options.withCharset(StandardCharsets.UTF_8)), OutputCaptureException.class);
+        final CapturedOutput captured = exception.getCapturedOutput().get();
+        //when
+        final String text = toStringWithCharset(captured.out(), StandardCharsets.UTF_8);
+        //then
+        assertThat(text).isEqualTo(line1 + System.lineSeparator());
+    }
+}
@@ -1,7 +1,9 @@
 package net.kemitix.outputcapture.test;
 
+import net.kemitix.outputcapture.CaptureOptions;
 import net.kemitix.outputcapture.CaptureOutput;
 import net.kemitix.outputcapture.CapturedOutput;
+import net.kemitix.outputcapture.CapturedOutputLine;
 import net.kemitix.outputcapture.OutputCaptureException;
 import net.kemitix.outputcapture.SafeLatch;
 import org.junit.Rule;
@@ -9,6 +11,7 @@ import org.junit.Test;
 import org.junit.rules.Timeout;
 
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
@@ -38,6 +41,61 @@ public class SynchronousFilteredRedirectTest extends AbstractCaptureTest {
         assertThat(captured.getStdErr()).containsExactly(line1, line2);
     }
 
+    @Test
+    public void decodesWithChosenCharset() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults()
+                .withCharset(StandardCharsets.ISO_8859_1)
+                .withLineSeparator("\n");
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            System.out.write(new byte[]{'c', 'a', 'f', (byte) 0xE9, '\n'});
+            System.out.flush();
+        }, options);
+        //then
+        assertThat(captured.getStdOut()).containsExactly("caf\u00e9");
+        assertThat(captured.stream().map(CapturedOutputLine::asString)).containsExactly("caf\u00e9");
+    }
+
+    @Test
+    public void splitsLinesOfCharsetWithByteOrderMark() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults()
+                .withCharset(StandardCharsets.UTF_16)
+                .withLineSeparator("\n");
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            final PrintStream utf16 = new PrintStream(System.out, true, StandardCharsets.UTF_16.name());
+            utf16.print(line1 + "\n" + line2 + "\n");
+            utf16.flush();
+        }, options);
+        //then
+        assertThat(captured.stream().map(CapturedOutputLine::asString)).containsExactly(line1, line2);
+    }
+
+    @Test
+    public void splitsLinesOfRangesWrittenAtOnce() {
+        //given
+        final CaptureOptions options = CaptureOptions.defaults()
+                .withCharset(StandardCharsets.UTF_8)
+                .withLineSeparator("\r\n");
+        final StringBuilder block = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            block.append(line1).append("\r\n");
+        }
+        //when
+        final CapturedOutput captured = CaptureOutput.of(() -> {
+            System.out.print(block + line2 + "\r");
+            System.out.print("\n");
+            System.out.write('x');
+            final byte[] bytes = ("\r\n" + line1 + "\r\n").getBytes(StandardCharsets.UTF_8);
+            System.out.write(bytes, 0, bytes.length);
+        }, options);
+        //then
+        assertThat(captured.getStdOut()).hasSize(103)
+                .endsWith(line1, line2, "x", line1);
+    }
+
     @Test
     public void replaceSystemOut() {
         //given